@@ -2,12 +2,14 @@ package com.example.routeplanner;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 /**
  * 交通路线规划系统主应用类
  */
 @SpringBootApplication
+@EnableScheduling
 public class TransportSystemApplication {
 
     public static void main(String[] args) {
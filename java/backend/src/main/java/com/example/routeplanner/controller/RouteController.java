@@ -1,18 +1,31 @@
 package com.example.routeplanner.controller;
 
 import com.example.routeplanner.model.Edge;
+import com.example.routeplanner.model.EdgeUpdate;
+import com.example.routeplanner.model.EdgeUpdateResponse;
+import com.example.routeplanner.model.GraphReloadResponse;
+import com.example.routeplanner.model.IsochroneResponse;
+import com.example.routeplanner.model.MatrixRequest;
+import com.example.routeplanner.model.MatrixResponse;
 import com.example.routeplanner.model.Node;
+import com.example.routeplanner.model.RouteAlgorithm;
 import com.example.routeplanner.model.RouteRequest;
 import com.example.routeplanner.model.RouteResponse;
-import com.example.routeplanner.service.PythonModelService;
 import com.example.routeplanner.service.RoutePlannerService;
+import com.example.routeplanner.service.VolumePredictor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 路线规划控制器
@@ -28,7 +41,13 @@ public class RouteController {
     private RoutePlannerService routePlannerService;
 
     @Autowired
-    private PythonModelService pythonModelService;
+    private VolumePredictor volumePredictor;
+
+    @Value("${route.planner.batch-max-size:10000}")
+    private int batchMaxSize;
+
+    @Value("${route.planner.batch-timeout-ms:300000}")
+    private long batchTimeoutMs;
 
     /**
      * 根据经纬度规划最优路径（返回两种路径）
@@ -52,15 +71,14 @@ public class RouteController {
                         new DualRouteResponse(false, "找不到终点附近的节点", null, null));
             }
 
-            // 1. 计算最优路径（考虑拥堵）
-            RouteRequest optimalRequest = new RouteRequest(startNodeId, endNodeId, request.getTimePoint());
-            optimalRequest.setCongestionAlpha(request.getCongestionAlpha());
-            RouteResponse optimalRoute = routePlannerService.planRoute(optimalRequest);
-
-            // 2. 计算绝对距离最短路径（不考虑拥堵）
-            RouteRequest shortestRequest = new RouteRequest(startNodeId, endNodeId, request.getTimePoint());
-            shortestRequest.setCongestionAlpha(0.0); // 设置为0，不考虑拥堵
-            RouteResponse shortestRoute = routePlannerService.planRoute(shortestRequest);
+            // 一次规划同时得到最优路径（考虑拥堵）与绝对距离最短路径（不考虑拥堵）
+            RouteRequest routeRequest = new RouteRequest(startNodeId, endNodeId, request.getTimePoint());
+            routeRequest.setCongestionAlpha(request.getCongestionAlpha());
+            routeRequest.setAlgorithm(request.getAlgorithm());
+            routeRequest.setAlternatives(request.getAlternatives());
+            RoutePlannerService.DualRoute dualRoute = routePlannerService.planDualRoute(routeRequest);
+            RouteResponse optimalRoute = dualRoute.getCongestionAwareRoute();
+            RouteResponse shortestRoute = dualRoute.getDistanceOnlyRoute();
 
             // 添加节点信息到响应中
             Map<Integer, Node> allNodes = routePlannerService.getAllNodes();
@@ -120,7 +138,9 @@ public class RouteController {
             @RequestParam double endLat,
             @RequestParam double endLng,
             @RequestParam(defaultValue = "100") int timePoint,
-            @RequestParam(defaultValue = "0.05") double congestionAlpha) {
+            @RequestParam(defaultValue = "0.05") double congestionAlpha,
+            @RequestParam(required = false) RouteAlgorithm algorithm,
+            @RequestParam(required = false) Integer alternatives) {
 
         CoordinateRouteRequest request = new CoordinateRouteRequest();
         request.setStartLatitude(startLat);
@@ -129,6 +149,8 @@ public class RouteController {
         request.setEndLongitude(endLng);
         request.setTimePoint(timePoint);
         request.setCongestionAlpha(congestionAlpha);
+        request.setAlgorithm(algorithm);
+        request.setAlternatives(alternatives);
 
         return planRouteByCoordinates(request);
     }
@@ -137,22 +159,9 @@ public class RouteController {
      * 找到距离指定经纬度最近的节点
      */
     private int findNearestNode(double latitude, double longitude) {
-        Map<Integer, Node> allNodes = routePlannerService.getAllNodes();
-        double minDistance = Double.MAX_VALUE;
-        int nearestNodeId = -1;
+        int nearestNodeId = routePlannerService.findNearestNode(latitude, longitude);
 
-        for (Map.Entry<Integer, Node> entry : allNodes.entrySet()) {
-            Node node = entry.getValue();
-            double distance = calculateDistance(latitude, longitude, node.getLatitude(), node.getLongitude());
-
-            if (distance < minDistance) {
-                minDistance = distance;
-                nearestNodeId = entry.getKey();
-            }
-        }
-
-        logger.debug("找到距离 ({}, {}) 最近的节点: {}, 距离: {} km",
-                latitude, longitude, nearestNodeId, minDistance);
+        logger.debug("找到距离 ({}, {}) 最近的节点: {}", latitude, longitude, nearestNodeId);
 
         return nearestNodeId;
     }
@@ -187,29 +196,17 @@ public class RouteController {
             Map<Integer, Node> allNodes = routePlannerService.getAllNodes();
             List<Map<String, Object>> nearestNodes = new ArrayList<>();
 
-            // 计算所有节点的距离并排序
-            List<Map.Entry<Integer, Double>> nodeDistances = new ArrayList<>();
-            for (Map.Entry<Integer, Node> entry : allNodes.entrySet()) {
-                Node node = entry.getValue();
-                double distance = calculateDistance(latitude, longitude, node.getLatitude(), node.getLongitude());
-                nodeDistances.add(new AbstractMap.SimpleEntry<>(entry.getKey(), distance));
-            }
-
-            // 按距离排序
-            nodeDistances.sort(Map.Entry.comparingByValue());
-
-            // 取前count个节点
-            for (int i = 0; i < Math.min(count, nodeDistances.size()); i++) {
-                Map.Entry<Integer, Double> entry = nodeDistances.get(i);
+            // 通过空间索引取最近的count个节点
+            for (Map.Entry<Integer, Double> entry :
+                    routePlannerService.findNearestNodes(latitude, longitude, count).entrySet()) {
                 int nodeId = entry.getKey();
-                double distance = entry.getValue();
                 Node node = allNodes.get(nodeId);
 
                 Map<String, Object> nodeInfo = new HashMap<>();
                 nodeInfo.put("nodeId", nodeId);
                 nodeInfo.put("latitude", node.getLatitude());
                 nodeInfo.put("longitude", node.getLongitude());
-                nodeInfo.put("distance", distance);
+                nodeInfo.put("distance", entry.getValue());
                 nearestNodes.add(nodeInfo);
             }
 
@@ -283,6 +280,164 @@ public class RouteController {
         }
     }
 
+    /**
+     * 批量规划路径
+     *
+     * 响应为 NDJSON 流：每完成一条规划即输出一行 {"index": 请求下标, "response": 规划结果}，
+     * 输出顺序与请求顺序无关。请求不合法时返回 400，并输出一行失败的规划结果。
+     */
+    @PostMapping("/plan/batch")
+    public ResponseEntity<ResponseBodyEmitter> planBatch(@RequestBody List<RouteRequest> requests) {
+        logger.info("收到批量路线规划请求: {} 条", requests.size());
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeoutMs);
+        String invalid = requests.size() > batchMaxSize ? "批量请求条数超过上限 " + batchMaxSize
+                : requests.contains(null) ? "批量请求中包含空请求" : null;
+        if (invalid != null) {
+            sendBatchResult(emitter, -1, new RouteResponse(false, invalid));
+            emitter.complete();
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+        }
+
+        long start = System.currentTimeMillis();
+        routePlannerService.planBatch(requests, (index, response) -> sendBatchResult(emitter, index, response))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        logger.error("批量路线规划失败: {}", error.getMessage());
+                        emitter.completeWithError(error);
+                    } else {
+                        logger.info("批量路线规划完成: {} 条, 耗时 {}ms",
+                                requests.size(), System.currentTimeMillis() - start);
+                        emitter.complete();
+                    }
+                });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    /**
+     * 输出一行批量规划结果
+     */
+    private void sendBatchResult(ResponseBodyEmitter emitter, int index, RouteResponse response) {
+        try {
+            // 结果来自多个搜索线程，一行 JSON 与换行符需一起写出
+            synchronized (emitter) {
+                emitter.send(new BatchRouteResult(index, response), MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("批量规划结果写出失败（客户端可能已断开）: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 计算多个起点到多个终点的距离、拥堵与行程时间矩阵
+     */
+    @PostMapping("/matrix")
+    public ResponseEntity<MatrixResponse> computeMatrix(@RequestBody MatrixRequest request) {
+        logger.info("收到代价矩阵请求: {}", request);
+
+        try {
+            MatrixResponse response = routePlannerService.computeMatrix(request);
+            logger.info("代价矩阵请求完成: {}", response);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("代价矩阵计算失败: {}", e.getMessage());
+            MatrixResponse errorResponse = new MatrixResponse(false, "代价矩阵计算失败: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * 计算从起点出发、在指定分钟数内可到达的节点（等时圈）
+     *
+     * 起点可以是节点ID，也可以是经纬度（取最近节点）。
+     */
+    @GetMapping("/isochrone")
+    public ResponseEntity<IsochroneResponse> computeIsochrone(
+            @RequestParam(required = false) Integer node,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam double minutes,
+            @RequestParam(defaultValue = "100") int timePoint,
+            @RequestParam(defaultValue = "0.05") double congestionAlpha,
+            @RequestParam(defaultValue = "false") boolean hull) {
+
+        try {
+            int startNode;
+            if (node != null) {
+                startNode = node;
+            } else if (latitude != null && longitude != null) {
+                startNode = findNearestNode(latitude, longitude);
+            } else {
+                return ResponseEntity.badRequest().body(new IsochroneResponse(false, "须指定起点节点或经纬度"));
+            }
+
+            IsochroneResponse response = routePlannerService.computeIsochrone(
+                    startNode, timePoint, congestionAlpha, minutes, hull);
+            logger.info("等时圈请求完成: {}", response);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("等时圈计算失败: {}", e.getMessage());
+            return ResponseEntity.status(500).body(new IsochroneResponse(false, "等时圈计算失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 重新加载路网数据
+     *
+     * 新路网在后台构建完成后原子替换，处理期间的查询继续使用当前路网。
+     */
+    @PostMapping("/graph/reload")
+    public CompletableFuture<ResponseEntity<GraphReloadResponse>> reloadGraph() {
+        logger.info("收到路网重新加载请求");
+
+        return routePlannerService.reloadGraph().thenApply(response -> {
+            logger.info("路网重新加载请求完成: {}", response);
+            return response.isSuccess() ? ResponseEntity.ok(response) : ResponseEntity.status(500).body(response);
+        });
+    }
+
+    /**
+     * 应用一批路段变更（新增、删除、封闭、覆盖距离或撤销）
+     *
+     * 变更在后台生效后返回，处理期间的查询继续使用当前路网；任一条不合法时整批拒绝并返回 400。
+     */
+    @PostMapping("/edges/updates")
+    public CompletableFuture<ResponseEntity<EdgeUpdateResponse>> updateEdges(@RequestBody List<EdgeUpdate> updates) {
+        logger.info("收到路段变更请求: {}", updates);
+
+        if (updates.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(new EdgeUpdateResponse(false, "路段变更列表不能为空")));
+        }
+        return routePlannerService.updateEdges(updates).thenApply(response -> {
+            logger.info("路段变更请求完成: {}", response);
+            return response.isSuccess() ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+        });
+    }
+
+    /**
+     * 立即将路段变更合并进基础路网
+     */
+    @PostMapping("/edges/compact")
+    public CompletableFuture<ResponseEntity<EdgeUpdateResponse>> compactEdges() {
+        logger.info("收到路段变更合并请求");
+
+        return routePlannerService.compactEdges().thenApply(response -> {
+            logger.info("路段变更合并请求完成: {}", response);
+            return response.isSuccess() ? ResponseEntity.ok(response) : ResponseEntity.status(500).body(response);
+        });
+    }
+
+    /**
+     * 获取当前生效的路段变更
+     */
+    @GetMapping("/edges/changes")
+    public ResponseEntity<EdgeUpdateResponse> getEdgeChanges() {
+        return ResponseEntity.ok(routePlannerService.getEdgeChanges());
+    }
+
     /**
      * 获取所有节点信息
      */
@@ -319,7 +474,7 @@ public class RouteController {
             @RequestParam int node,
             @RequestParam int time) {
         try {
-            double volume = pythonModelService.predictVolume(node, time);
+            double volume = volumePredictor.predictVolume(node, time);
             Map<String, Object> response = new HashMap<>();
             response.put("node", node);
             response.put("time", time);
@@ -345,7 +500,8 @@ public class RouteController {
         response.put("timestamp", System.currentTimeMillis());
         response.put("nodeCount", routePlannerService.getAllNodes().size());
         response.put("edgeCount", routePlannerService.getAllEdges().size());
-        response.put("pythonModelAvailable", pythonModelService.isServiceAvailable());
+        response.put("graphVersion", routePlannerService.getGraphVersion());
+        response.put("pythonModelAvailable", volumePredictor.isServiceAvailable());
 
         return ResponseEntity.ok(response);
     }
@@ -358,10 +514,14 @@ public class RouteController {
             @RequestParam int startNode,
             @RequestParam int endNode,
             @RequestParam(defaultValue = "100") int timePoint,
-            @RequestParam(defaultValue = "0.05") double congestionAlpha) {
+            @RequestParam(defaultValue = "0.05") double congestionAlpha,
+            @RequestParam(required = false) RouteAlgorithm algorithm,
+            @RequestParam(required = false) Integer alternatives) {
 
         RouteRequest request = new RouteRequest(startNode, endNode, timePoint);
         request.setCongestionAlpha(congestionAlpha);
+        request.setAlgorithm(algorithm);
+        request.setAlternatives(alternatives);
 
         return planRoute(request);
     }
@@ -378,6 +538,8 @@ public class RouteController {
         private double endLongitude;
         private int timePoint = 100;
         private double congestionAlpha = 0.05;
+        private RouteAlgorithm algorithm;
+        private Integer alternatives;
 
         // Getters and Setters
         public double getStartLatitude() {
@@ -428,6 +590,22 @@ public class RouteController {
             this.congestionAlpha = congestionAlpha;
         }
 
+        public RouteAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(RouteAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public Integer getAlternatives() {
+            return alternatives;
+        }
+
+        public void setAlternatives(Integer alternatives) {
+            this.alternatives = alternatives;
+        }
+
         @Override
         public String toString() {
             return "CoordinateRouteRequest{" +
@@ -437,6 +615,8 @@ public class RouteController {
                     ", endLongitude=" + endLongitude +
                     ", timePoint=" + timePoint +
                     ", congestionAlpha=" + congestionAlpha +
+                    ", algorithm=" + algorithm +
+                    ", alternatives=" + alternatives +
                     '}';
         }
     }
@@ -461,7 +641,41 @@ public class RouteController {
         }
 
         // Getters and Setters
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public void setSuccess(boolean success) {
+            this.success = success;
+        }
 
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public RouteResponse getOptimalRoute() {
+            return optimalRoute;
+        }
+
+        public void setOptimalRoute(RouteResponse optimalRoute) {
+            this.optimalRoute = optimalRoute;
+        }
+
+        public RouteResponse getShortestRoute() {
+            return shortestRoute;
+        }
+
+        public void setShortestRoute(RouteResponse shortestRoute) {
+            this.shortestRoute = shortestRoute;
+        }
+
+        public RouteComparison getComparison() {
+            return comparison;
+        }
 
         public void setComparison(RouteComparison comparison) {
             this.comparison = comparison;
@@ -479,6 +693,27 @@ public class RouteController {
         }
     }
 
+    /**
+     * 批量规划中的单条结果
+     */
+    public static class BatchRouteResult {
+        private final int index;
+        private final RouteResponse response;
+
+        public BatchRouteResult(int index, RouteResponse response) {
+            this.index = index;
+            this.response = response;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public RouteResponse getResponse() {
+            return response;
+        }
+    }
+
     /**
      * 路径比较类
      */
@@ -500,10 +735,17 @@ public class RouteController {
             this.distanceDifference = distanceDifference;
         }
 
+        public double getDistanceRatio() {
+            return distanceRatio;
+        }
+
         public void setDistanceRatio(double distanceRatio) {
             this.distanceRatio = distanceRatio;
         }
 
+        public double getCongestionDifference() {
+            return congestionDifference;
+        }
 
         public void setCongestionDifference(double congestionDifference) {
             this.congestionDifference = congestionDifference;
@@ -517,6 +759,9 @@ public class RouteController {
             this.congestionRatio = congestionRatio;
         }
 
+        public int getPathLengthDifference() {
+            return pathLengthDifference;
+        }
 
         public void setPathLengthDifference(int pathLengthDifference) {
             this.pathLengthDifference = pathLengthDifference;
@@ -530,6 +775,9 @@ public class RouteController {
             this.samePath = samePath;
         }
 
+        public String getRecommendation() {
+            return recommendation;
+        }
 
         public void setRecommendation(String recommendation) {
             this.recommendation = recommendation;
@@ -0,0 +1,18 @@
+package com.example.routeplanner.controller;
+
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class RouteWebConfig implements WebMvcConfigurer {
+
+    /**
+     * 请求参数中的枚举值（如 algorithm=astar）不区分大小写，与 JSON 请求体保持一致
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        ApplicationConversionService.addApplicationConverters(registry);
+    }
+}
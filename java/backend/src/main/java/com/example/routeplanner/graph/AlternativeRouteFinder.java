@@ -0,0 +1,154 @@
+package com.example.routeplanner.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 备选路径搜索（惩罚法）
+ *
+ * 以已求得的最优路径为起点，每轮把已找到路径上的弧权重乘以惩罚系数后重新做一次双向搜索，
+ * 新路径按原始权重计算代价。与已接受路径（含最优路径）的重叠比例不超过 maxOverlap、
+ * 代价不超过最优代价 maxStretch 倍的路径被接受；代价超限时停止。
+ * 惩罚系数记录在稀疏表中，每轮只是一次普通的点到点搜索，适合在每个请求上执行。
+ */
+public final class AlternativeRouteFinder {
+
+    // 每条备选路径最多尝试的搜索轮数
+    private static final int ATTEMPTS_PER_ROUTE = 3;
+
+    private final ShortestPathEngine engine;
+    private final double penaltyFactor;
+    private final double maxOverlap;
+    private final double maxStretch;
+
+    /**
+     * @param penaltyFactor 每轮对已找到路径上的弧施加的惩罚系数，须大于 1
+     * @param maxOverlap 与已接受路径的最大重叠比例（按权重计，0~1）
+     * @param maxStretch 备选路径代价与最优代价之比的上限
+     */
+    public AlternativeRouteFinder(ShortestPathEngine engine, double penaltyFactor, double maxOverlap, double maxStretch) {
+        if (penaltyFactor <= 1) {
+            throw new IllegalArgumentException("惩罚系数必须大于 1");
+        }
+        this.engine = engine;
+        this.penaltyFactor = penaltyFactor;
+        this.maxOverlap = maxOverlap;
+        this.maxStretch = maxStretch;
+    }
+
+    /**
+     * 搜索备选路径
+     * @param weights 最优路径所用的弧权重
+     * @param optimalArcs 已求得的最优路径上的弧
+     * @param count 最多返回的备选路径条数
+     * @return 按代价升序的备选路径，不含最优路径本身
+     */
+    public List<Alternative> find(int source, int target, ArcWeights weights, int[] optimalArcs, int count) {
+        List<Alternative> alternatives = new ArrayList<>(count);
+        if (count <= 0 || optimalArcs.length == 0) {
+            return alternatives;
+        }
+
+        double optimalWeight = pathWeight(optimalArcs, weights);
+        List<int[]> acceptedArcs = new ArrayList<>(count + 1);
+        acceptedArcs.add(sortedCopy(optimalArcs));
+
+        ArcPenalties penalties = new ArcPenalties(optimalArcs.length * (count + 1));
+        ArcWeights penalized = weights.withPenalties(penalties);
+        penalize(optimalArcs, penalties);
+
+        for (int attempt = 0; attempt < count * ATTEMPTS_PER_ROUTE && alternatives.size() < count; attempt++) {
+            PathSearchResult candidate = engine.searchBidirectional(source, target, penalized);
+            if (!candidate.isFound()) {
+                break;
+            }
+            int[] arcs = candidate.getArcs();
+            double weight = pathWeight(arcs, weights);
+            double stretch = optimalWeight > 0 ? weight / optimalWeight : 1.0;
+            if (stretch > maxStretch) {
+                break;
+            }
+            penalize(arcs, penalties);
+
+            double overlap = 0.0;
+            for (int[] accepted : acceptedArcs) {
+                overlap = Math.max(overlap, sharedWeight(arcs, accepted, weights) / weight);
+            }
+            if (overlap <= maxOverlap) {
+                acceptedArcs.add(sortedCopy(arcs));
+                alternatives.add(new Alternative(
+                        new PathSearchResult(candidate.getNodes(), arcs, weight), overlap, stretch));
+            }
+        }
+
+        alternatives.sort((a, b) -> Double.compare(a.path.getTotalWeight(), b.path.getTotalWeight()));
+        return alternatives;
+    }
+
+    private void penalize(int[] arcs, ArcPenalties penalties) {
+        for (int arc : arcs) {
+            penalties.multiply(arc, penaltyFactor);
+        }
+    }
+
+    private static double pathWeight(int[] arcs, ArcWeights weights) {
+        double total = 0.0;
+        for (int arc : arcs) {
+            total += weights.weight(arc);
+        }
+        return total;
+    }
+
+    /**
+     * arcs 中同时出现在 sortedArcs 上的弧的权重之和
+     */
+    private static double sharedWeight(int[] arcs, int[] sortedArcs, ArcWeights weights) {
+        double shared = 0.0;
+        for (int arc : arcs) {
+            if (Arrays.binarySearch(sortedArcs, arc) >= 0) {
+                shared += weights.weight(arc);
+            }
+        }
+        return shared;
+    }
+
+    private static int[] sortedCopy(int[] arcs) {
+        int[] copy = arcs.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * 一条备选路径，总权重为按原始权重计算的代价
+     */
+    public static final class Alternative {
+        private final PathSearchResult path;
+        private final double overlap;
+        private final double stretch;
+
+        Alternative(PathSearchResult path, double overlap, double stretch) {
+            this.path = path;
+            this.overlap = overlap;
+            this.stretch = stretch;
+        }
+
+        public PathSearchResult getPath() {
+            return path;
+        }
+
+        /**
+         * 与最优路径及先于它被接受的备选路径的最大重叠比例，按权重计
+         */
+        public double getOverlap() {
+            return overlap;
+        }
+
+        /**
+         * 代价与最优路径代价之比
+         */
+        public double getStretch() {
+            return stretch;
+        }
+    }
+}
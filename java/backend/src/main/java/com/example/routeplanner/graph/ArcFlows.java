@@ -0,0 +1,51 @@
+package com.example.routeplanner.graph;
+
+/**
+ * 按弧下标存放的某一时间点平均流量，附带最小/最大值
+ *
+ * 上下界在构建时计算一次，供启发式搜索推导权重下界，无需每次查询扫描全部弧。
+ */
+public final class ArcFlows {
+
+    final double[] values;
+    private final double min;
+    private final double max;
+
+    private ArcFlows(double[] values, double min, double max) {
+        this.values = values;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @param values 按弧下标存放的流量，调用方不得再修改
+     */
+    public static ArcFlows of(double[] values) {
+        if (values.length == 0) {
+            return new ArcFlows(values, 0.0, 0.0);
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return new ArcFlows(values, min, max);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double get(int arc) {
+        return values[arc];
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * 稀疏的弧惩罚系数表（开放寻址，弧下标 -> 乘法系数，未记录的弧系数为 1）
+ *
+ * 备选路径搜索只惩罚已找到路径上的少量弧，按弧下标稠密存放会为每次查询分配 O(E) 的数组。
+ * 非线程安全；附加到 {@link ArcWeights} 后，在搜索期间不得修改。
+ */
+public final class ArcPenalties {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private double[] factors;
+    private int size;
+
+    public ArcPenalties() {
+        this(64);
+    }
+
+    public ArcPenalties(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.keys = new int[capacity];
+        this.factors = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * 将弧的惩罚系数乘以 factor
+     */
+    public void multiply(int arc, double factor) {
+        int slot = find(arc);
+        if (keys[slot] == arc) {
+            factors[slot] *= factor;
+            return;
+        }
+        keys[slot] = arc;
+        factors[slot] = factor;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * @return 弧的惩罚系数，未记录时为 1
+     */
+    public double factor(int arc) {
+        int slot = find(arc);
+        return keys[slot] == arc ? factors[slot] : 1.0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(int arc) {
+        int mask = keys.length - 1;
+        int hash = arc * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != arc) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldFactors = factors;
+        keys = new int[oldKeys.length * 2];
+        factors = new double[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                factors[slot] = oldFactors[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.routeplanner.graph;
+
+/**
+ * 单次查询使用的不可变弧权重视图
+ *
+ * 权重在松弛时惰性计算：weight = distance * (1 + alpha * flow)，
+ * flows 为空时即为纯距离权重；附加了 {@link EdgeOverlay} 时 distance 取覆盖后的有效距离。
+ * 视图本身不持有可变状态，可被多个线程同时使用；
+ * 附加了惩罚系数的视图（见 {@link #withPenalties}）除外，只在单次备选路径搜索内使用。
+ */
+public final class ArcWeights {
+
+    final double[] distances;
+    final double[] flows;
+    final double alpha;
+    // 所有弧上 weight / distance 的下界
+    private final double minFactor;
+    private final ArcFlows arcFlows;
+    // 乘在基础权重上的惩罚系数（均不小于 1），为空表示无惩罚
+    private final ArcPenalties penalties;
+    // 弧距离覆盖，为空表示使用图中的距离
+    private final EdgeOverlay overlay;
+
+    private ArcWeights(double[] distances, ArcFlows arcFlows, double alpha, double minFactor,
+                       ArcPenalties penalties, EdgeOverlay overlay) {
+        this.distances = distances;
+        this.arcFlows = arcFlows;
+        this.flows = arcFlows != null ? arcFlows.values : null;
+        this.alpha = alpha;
+        this.minFactor = minFactor;
+        this.penalties = penalties;
+        this.overlay = overlay;
+    }
+
+    /**
+     * 纯距离权重
+     */
+    public static ArcWeights distance(CsrGraph graph) {
+        return new ArcWeights(graph.distances, null, 0.0, 1.0, null, null);
+    }
+
+    /**
+     * 拥堵权重
+     * @param arcFlows 按弧下标存放的两端平均流量
+     * @param alpha 拥堵系数权重
+     */
+    public static ArcWeights congestion(CsrGraph graph, ArcFlows arcFlows, double alpha) {
+        if (arcFlows.size() != graph.arcCount()) {
+            throw new IllegalArgumentException("弧流量数组长度与图不匹配");
+        }
+        double minFactor = 1 + alpha * (alpha >= 0 ? arcFlows.min() : arcFlows.max());
+        return new ArcWeights(graph.distances, arcFlows, alpha, Math.max(0.0, minFactor), null, null);
+    }
+
+    /**
+     * 在当前权重上附加惩罚系数，系数须不小于 1，因此 {@link #getMinFactor} 仍是下界
+     */
+    public ArcWeights withPenalties(ArcPenalties penalties) {
+        return new ArcWeights(distances, arcFlows, alpha, minFactor, penalties, overlay);
+    }
+
+    /**
+     * 以覆盖后的有效距离代替图中的距离；下界按覆盖中距离缩小的最大比例同步缩小，
+     * 基于图距离的启发值（大圆距离、地标）乘以 {@link #getMinFactor} 后仍可采纳
+     */
+    public ArcWeights withOverlay(EdgeOverlay overlay) {
+        if (overlay.distances.length != distances.length) {
+            throw new IllegalArgumentException("弧距离覆盖与图不匹配");
+        }
+        if (overlay.isEmpty()) {
+            return this;
+        }
+        return new ArcWeights(overlay.distances, arcFlows, alpha, minFactor * overlay.getDistanceScale(),
+                penalties, overlay);
+    }
+
+    /**
+     * 是否附加了惩罚系数；此类视图与同一 (流量表, alpha) 的普通视图权重不同，不能共享按其缓存的结果
+     */
+    public boolean hasPenalties() {
+        return penalties != null;
+    }
+
+    /**
+     * 附加的弧距离覆盖，未附加时为 null；覆盖不同的视图权重不同，不能共享按其缓存的结果
+     */
+    public EdgeOverlay getOverlay() {
+        return overlay;
+    }
+
+    public boolean isDistanceOnly() {
+        return flows == null;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * 拥堵权重使用的流量表，纯距离权重时为 null
+     */
+    public ArcFlows getFlows() {
+        return arcFlows;
+    }
+
+    /**
+     * 拥堵因子 (1 + alpha * flow) 在所有弧上的下界，不小于 0
+     */
+    public double getMinFactor() {
+        return minFactor;
+    }
+
+    public double weight(int arc) {
+        double weight = flows == null ? distances[arc] : distances[arc] * (1 + alpha * flows[arc]);
+        return penalties == null ? weight : weight * penalties.factor(arc);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.routeplanner.graph;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * 按弧距离预处理得到的收缩层次（Contraction Hierarchies）
+ *
+ * 边集合包含原始弧与捷径：原始边记录对应的 CSR 弧，捷径记录被其替代的两条子边，
+ * 查询结果据此递归展开回原始弧。查询只沿向上的边搜索：
+ * 正向搜索使用起点低于终点的边（up），反向搜索使用起点高于终点的边（down，按终点存放）。
+ */
+public final class ContractionHierarchy {
+
+    private static final int FILE_MAGIC = 0x43484831; // "CHH1"
+
+    private final int nodeCount;
+    // 收缩顺序，值越大层级越高
+    final int[] ranks;
+
+    final int[] edgeFrom;
+    final int[] edgeTo;
+    final double[] edgeWeights;
+    // 原始边 -> CSR 弧下标，捷径为 -1
+    final int[] originalArcs;
+    // 捷径 -> 两条子边，原始边为 -1
+    final int[] firstChildren;
+    final int[] secondChildren;
+
+    // 节点 u 的向上出边 upEdges[upOffsets[u] .. upOffsets[u+1])
+    final int[] upOffsets;
+    final int[] upEdges;
+    // 节点 v 的来自更高层节点的入边 downEdges[downOffsets[v] .. downOffsets[v+1])
+    final int[] downOffsets;
+    final int[] downEdges;
+
+    ContractionHierarchy(int nodeCount, int[] ranks, int[] edgeFrom, int[] edgeTo, double[] edgeWeights,
+                         int[] originalArcs, int[] firstChildren, int[] secondChildren) {
+        this.nodeCount = nodeCount;
+        this.ranks = ranks;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeWeights = edgeWeights;
+        this.originalArcs = originalArcs;
+        this.firstChildren = firstChildren;
+        this.secondChildren = secondChildren;
+
+        this.upOffsets = new int[nodeCount + 1];
+        this.downOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeFrom.length; e++) {
+            if (isUpward(e)) {
+                upOffsets[edgeFrom[e] + 1]++;
+            } else {
+                downOffsets[edgeTo[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        this.upEdges = new int[upOffsets[nodeCount]];
+        this.downEdges = new int[downOffsets[nodeCount]];
+        int[] upCursor = new int[nodeCount];
+        int[] downCursor = new int[nodeCount];
+        for (int e = 0; e < edgeFrom.length; e++) {
+            if (isUpward(e)) {
+                int u = edgeFrom[e];
+                upEdges[upOffsets[u] + upCursor[u]++] = e;
+            } else {
+                int v = edgeTo[e];
+                downEdges[downOffsets[v] + downCursor[v]++] = e;
+            }
+        }
+    }
+
+    /**
+     * 对图做收缩预处理
+     */
+    public static ContractionHierarchy build(CsrGraph graph) {
+        return new ContractionHierarchyBuilder(graph).build();
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeFrom.length;
+    }
+
+    /**
+     * 捷径数量
+     */
+    public int shortcutCount() {
+        int count = 0;
+        for (int arc : originalArcs) {
+            if (arc < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isUpward(int edge) {
+        return ranks[edgeFrom[edge]] < ranks[edgeTo[edge]];
+    }
+
+    /**
+     * 写出层次数据，附带图的校验值
+     */
+    public void write(DataOutputStream out, CsrGraph graph) throws IOException {
+        out.writeInt(FILE_MAGIC);
+        out.writeLong(graph.fingerprint());
+        out.writeInt(nodeCount);
+        out.writeInt(edgeFrom.length);
+        for (int rank : ranks) {
+            out.writeInt(rank);
+        }
+        for (int e = 0; e < edgeFrom.length; e++) {
+            out.writeInt(edgeFrom[e]);
+            out.writeInt(edgeTo[e]);
+            out.writeDouble(edgeWeights[e]);
+            out.writeInt(originalArcs[e]);
+            out.writeInt(firstChildren[e]);
+            out.writeInt(secondChildren[e]);
+        }
+    }
+
+    /**
+     * 读取层次数据
+     * @throws IOException 文件损坏或与当前图不匹配
+     */
+    public static ContractionHierarchy read(DataInputStream in, CsrGraph graph) throws IOException {
+        if (in.readInt() != FILE_MAGIC) {
+            throw new IOException("不是收缩层次文件");
+        }
+        if (in.readLong() != graph.fingerprint()) {
+            throw new IOException("收缩层次文件与当前路网不匹配");
+        }
+        int nodeCount = in.readInt();
+        int edgeCount = in.readInt();
+        if (nodeCount != graph.nodeCount() || edgeCount < 0) {
+            throw new IOException("收缩层次文件头部无效");
+        }
+
+        int[] ranks = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            ranks[v] = in.readInt();
+        }
+        int[] edgeFrom = new int[edgeCount];
+        int[] edgeTo = new int[edgeCount];
+        double[] edgeWeights = new double[edgeCount];
+        int[] originalArcs = new int[edgeCount];
+        int[] firstChildren = new int[edgeCount];
+        int[] secondChildren = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeFrom[e] = in.readInt();
+            edgeTo[e] = in.readInt();
+            edgeWeights[e] = in.readDouble();
+            originalArcs[e] = in.readInt();
+            firstChildren[e] = in.readInt();
+            secondChildren[e] = in.readInt();
+            if (edgeFrom[e] < 0 || edgeFrom[e] >= nodeCount || edgeTo[e] < 0 || edgeTo[e] >= nodeCount
+                    || originalArcs[e] >= graph.arcCount()
+                    || (originalArcs[e] < 0 && (firstChildren[e] < 0 || firstChildren[e] >= e
+                    || secondChildren[e] < 0 || secondChildren[e] >= e))) {
+                throw new IOException("收缩层次文件边数据无效: " + e);
+            }
+        }
+        return new ContractionHierarchy(nodeCount, ranks, edgeFrom, edgeTo, edgeWeights,
+                originalArcs, firstChildren, secondChildren);
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * 收缩层次预处理
+ *
+ * 按优先级（边差 + 已收缩邻居数）逐个收缩节点，优先级惰性更新：
+ * 弹出节点时重新计算，若不再最小则重新入堆。收缩节点 v 时，对每个入邻居 u
+ * 做一次排除 v 的有界见证搜索，找不到不经过 v 的更短路径时添加捷径 u -> w。
+ */
+final class ContractionHierarchyBuilder {
+
+    // 见证搜索最多确定的节点数，超出后保守地添加捷径
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final CsrGraph graph;
+    private final int nodeCount;
+
+    private int edgeCount;
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private double[] edgeWeights;
+    private int[] originalArcs;
+    private int[] firstChildren;
+    private int[] secondChildren;
+
+    // 剩余图的邻接表（边下标），可能含指向已收缩节点的边，遍历时跳过
+    private final int[][] outEdges;
+    private final int[] outSizes;
+    private final int[][] inEdges;
+    private final int[] inSizes;
+
+    private final boolean[] contracted;
+    private final int[] contractedNeighbors;
+    private final SearchWorkspace witness;
+    // 见证搜索的目标标记，值等于 targetEpoch 的节点为本次目标
+    private final int[] targetMarks;
+    private int targetEpoch;
+
+    ContractionHierarchyBuilder(CsrGraph graph) {
+        this.graph = graph;
+        this.nodeCount = graph.nodeCount();
+        int capacity = Math.max(16, graph.arcCount() * 2);
+        this.edgeFrom = new int[capacity];
+        this.edgeTo = new int[capacity];
+        this.edgeWeights = new double[capacity];
+        this.originalArcs = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.secondChildren = new int[capacity];
+        this.outEdges = new int[nodeCount][];
+        this.outSizes = new int[nodeCount];
+        this.inEdges = new int[nodeCount][];
+        this.inSizes = new int[nodeCount];
+        this.contracted = new boolean[nodeCount];
+        this.contractedNeighbors = new int[nodeCount];
+        this.witness = new SearchWorkspace(nodeCount);
+        this.targetMarks = new int[nodeCount];
+    }
+
+    ContractionHierarchy build() {
+        for (int v = 0; v < nodeCount; v++) {
+            outEdges[v] = new int[Math.max(2, graph.endArc(v) - graph.firstArc(v))];
+            inEdges[v] = new int[Math.max(2, graph.reverseOffsets[v + 1] - graph.reverseOffsets[v])];
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.target(arc);
+                if (u != v) {
+                    addEdge(u, v, graph.distance(arc), arc, -1, -1);
+                }
+            }
+        }
+
+        IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            queue.insertOrDecrease(v, priority(v));
+        }
+
+        int[] ranks = new int[nodeCount];
+        int[] neighborMarks = new int[nodeCount];
+        int nextRank = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            double current = priority(v);
+            if (!queue.isEmpty() && current > queue.minKey()) {
+                queue.insertOrDecrease(v, current);
+                continue;
+            }
+
+            contract(v, false);
+            contracted[v] = true;
+            ranks[v] = nextRank++;
+
+            // 更新邻居：计数、压缩邻接表、重算优先级
+            int mark = nextRank;
+            for (int i = 0; i < outSizes[v]; i++) {
+                int w = edgeTo[outEdges[v][i]];
+                if (!contracted[w] && neighborMarks[w] != mark) {
+                    neighborMarks[w] = mark;
+                    updateNeighbor(w, queue);
+                }
+            }
+            for (int i = 0; i < inSizes[v]; i++) {
+                int u = edgeFrom[inEdges[v][i]];
+                if (!contracted[u] && neighborMarks[u] != mark) {
+                    neighborMarks[u] = mark;
+                    updateNeighbor(u, queue);
+                }
+            }
+        }
+
+        return new ContractionHierarchy(nodeCount, ranks,
+                Arrays.copyOf(edgeFrom, edgeCount), Arrays.copyOf(edgeTo, edgeCount),
+                Arrays.copyOf(edgeWeights, edgeCount), Arrays.copyOf(originalArcs, edgeCount),
+                Arrays.copyOf(firstChildren, edgeCount), Arrays.copyOf(secondChildren, edgeCount));
+    }
+
+    private void updateNeighbor(int node, IndexedMinHeap queue) {
+        contractedNeighbors[node]++;
+        outSizes[node] = compact(outEdges[node], outSizes[node], edgeTo);
+        inSizes[node] = compact(inEdges[node], inSizes[node], edgeFrom);
+        // 堆只支持降低键值，升高的部分在弹出时惰性修正
+        queue.insertOrDecrease(node, priority(node));
+    }
+
+    /**
+     * 移除另一端已收缩的边
+     */
+    private int compact(int[] list, int size, int[] otherEnd) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!contracted[otherEnd[list[i]]]) {
+                list[kept++] = list[i];
+            }
+        }
+        return kept;
+    }
+
+    private double priority(int v) {
+        int removed = 0;
+        for (int i = 0; i < outSizes[v]; i++) {
+            if (!contracted[edgeTo[outEdges[v][i]]]) {
+                removed++;
+            }
+        }
+        for (int i = 0; i < inSizes[v]; i++) {
+            if (!contracted[edgeFrom[inEdges[v][i]]]) {
+                removed++;
+            }
+        }
+        return contract(v, true) - removed + contractedNeighbors[v];
+    }
+
+    /**
+     * 收缩节点 v
+     * @param simulate 为 true 时只统计需要的捷径数，不修改图
+     * @return 捷径数
+     */
+    private int contract(int v, boolean simulate) {
+        int shortcuts = 0;
+        for (int i = 0; i < inSizes[v]; i++) {
+            int inEdge = inEdges[v][i];
+            int u = edgeFrom[inEdge];
+            if (contracted[u]) {
+                continue;
+            }
+
+            double maxOut = -1;
+            int targets = 0;
+            targetEpoch++;
+            for (int j = 0; j < outSizes[v]; j++) {
+                int w = edgeTo[outEdges[v][j]];
+                if (!contracted[w] && w != u) {
+                    maxOut = Math.max(maxOut, edgeWeights[outEdges[v][j]]);
+                    if (targetMarks[w] != targetEpoch) {
+                        targetMarks[w] = targetEpoch;
+                        targets++;
+                    }
+                }
+            }
+            if (maxOut < 0) {
+                continue;
+            }
+
+            double inWeight = edgeWeights[inEdge];
+            witnessSearch(u, v, inWeight + maxOut, targets);
+            for (int j = 0; j < outSizes[v]; j++) {
+                int outEdge = outEdges[v][j];
+                int w = edgeTo[outEdge];
+                if (contracted[w] || w == u) {
+                    continue;
+                }
+                double via = inWeight + edgeWeights[outEdge];
+                if (witness.distance(w) <= via) {
+                    continue;
+                }
+                if (simulate) {
+                    shortcuts++;
+                } else if (addShortcut(u, w, via, inEdge, outEdge)) {
+                    shortcuts++;
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * 在剩余图中从 u 出发、排除 excluded 的有界 Dijkstra，全部目标确定后提前结束
+     */
+    private void witnessSearch(int u, int excluded, double maxDistance, int targets) {
+        witness.reset();
+        IndexedMinHeap heap = witness.heap;
+        witness.update(u, 0.0, -1, -1);
+        heap.insertOrDecrease(u, 0.0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            double dist = heap.minKey();
+            if (dist > maxDistance || ++settled > WITNESS_SETTLE_LIMIT) {
+                return;
+            }
+            int x = heap.poll();
+            if (targetMarks[x] == targetEpoch && --targets == 0) {
+                return;
+            }
+            for (int i = 0; i < outSizes[x]; i++) {
+                int edge = outEdges[x][i];
+                int y = edgeTo[edge];
+                if (contracted[y] || y == excluded) {
+                    continue;
+                }
+                double newDist = dist + edgeWeights[edge];
+                if (newDist < witness.distance(y)) {
+                    witness.update(y, newDist, x, edge);
+                    heap.insertOrDecrease(y, newDist);
+                }
+            }
+        }
+    }
+
+    /**
+     * 添加捷径 u -> w；已有不更长的 u -> w 边时跳过
+     */
+    private boolean addShortcut(int u, int w, double weight, int firstChild, int secondChild) {
+        for (int i = 0; i < outSizes[u]; i++) {
+            int edge = outEdges[u][i];
+            if (edgeTo[edge] == w && edgeWeights[edge] <= weight) {
+                return false;
+            }
+        }
+        addEdge(u, w, weight, -1, firstChild, secondChild);
+        return true;
+    }
+
+    private void addEdge(int from, int to, double weight, int originalArc, int firstChild, int secondChild) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+            originalArcs = Arrays.copyOf(originalArcs, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            secondChildren = Arrays.copyOf(secondChildren, capacity);
+        }
+        int edge = edgeCount++;
+        edgeFrom[edge] = from;
+        edgeTo[edge] = to;
+        edgeWeights[edge] = weight;
+        originalArcs[edge] = originalArc;
+        firstChildren[edge] = firstChild;
+        secondChildren[edge] = secondChild;
+
+        if (outSizes[from] == outEdges[from].length) {
+            outEdges[from] = Arrays.copyOf(outEdges[from], outSizes[from] * 2);
+        }
+        outEdges[from][outSizes[from]++] = edge;
+        if (inSizes[to] == inEdges[to].length) {
+            inEdges[to] = Arrays.copyOf(inEdges[to], inSizes[to] * 2);
+        }
+        inEdges[to][inSizes[to]++] = edge;
+    }
+}
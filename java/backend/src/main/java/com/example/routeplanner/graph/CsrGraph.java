@@ -0,0 +1,266 @@
+package com.example.routeplanner.graph;
+
+import com.example.routeplanner.model.Edge;
+import com.example.routeplanner.model.Node;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 压缩稀疏行（CSR）格式的不可变路网图
+ *
+ * 节点按传感器ID升序映射为 0..n-1 的稠密下标，
+ * 节点 u 的出边为弧 offsets[u] .. offsets[u+1]-1。
+ * 同时保存反向邻接（入边），供反向搜索使用。
+ */
+public final class CsrGraph {
+
+    // 下标 -> 传感器ID（升序）
+    final int[] nodeIds;
+    final double[] latitudes;
+    final double[] longitudes;
+
+    // 节点 u 的出边范围 [offsets[u], offsets[u+1])
+    final int[] offsets;
+    // 弧 -> 终点下标
+    final int[] targets;
+    // 弧 -> 距离（公里）
+    final double[] distances;
+    // 弧 -> 原始边列表中的位置
+    final int[] edgeIndices;
+
+    // 节点 v 的入边范围 [reverseOffsets[v], reverseOffsets[v+1])
+    final int[] reverseOffsets;
+    // 入边 -> 对应的正向弧下标
+    final int[] reverseArcs;
+    // 入边 -> 起点下标
+    final int[] reverseSources;
+
+    CsrGraph(int[] nodeIds, double[] latitudes, double[] longitudes,
+             int[] offsets, int[] targets, double[] distances, int[] edgeIndices,
+             int[] reverseOffsets, int[] reverseArcs, int[] reverseSources) {
+        this.nodeIds = nodeIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.distances = distances;
+        this.edgeIndices = edgeIndices;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseArcs = reverseArcs;
+        this.reverseSources = reverseSources;
+    }
+
+    /**
+     * 由正向邻接计算反向邻接
+     */
+    private static CsrGraph withReverse(int[] nodeIds, double[] latitudes, double[] longitudes,
+                                        int[] offsets, int[] targets, double[] distances, int[] edgeIndices) {
+        int n = nodeIds.length;
+        int[] reverseOffsets = new int[n + 1];
+        for (int target : targets) {
+            reverseOffsets[target + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] reverseArcs = new int[targets.length];
+        int[] reverseSources = new int[targets.length];
+        int[] cursor = Arrays.copyOf(reverseOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+                int slot = cursor[targets[arc]]++;
+                reverseArcs[slot] = arc;
+                reverseSources[slot] = u;
+            }
+        }
+        return new CsrGraph(nodeIds, latitudes, longitudes, offsets, targets, distances, edgeIndices,
+                reverseOffsets, reverseArcs, reverseSources);
+    }
+
+    /**
+     * 由节点集合与有向边列表构建 CSR 图，端点不存在的边被忽略
+     */
+    public static CsrGraph build(Collection<Node> nodes, List<Edge> edges) {
+        int n = nodes.size();
+        int[] nodeIds = new int[n];
+        int i = 0;
+        for (Node node : nodes) {
+            nodeIds[i++] = node.getSensorId();
+        }
+        Arrays.sort(nodeIds);
+
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (Node node : nodes) {
+            int index = Arrays.binarySearch(nodeIds, node.getSensorId());
+            latitudes[index] = node.getLatitude();
+            longitudes[index] = node.getLongitude();
+        }
+
+        int[] sources = new int[edges.size()];
+        int[] destinations = new int[edges.size()];
+        double[] distances = new double[edges.size()];
+        for (int e = 0; e < edges.size(); e++) {
+            Edge edge = edges.get(e);
+            sources[e] = Arrays.binarySearch(nodeIds, edge.getFrom());
+            destinations[e] = Arrays.binarySearch(nodeIds, edge.getTo());
+            distances[e] = edge.getDistance();
+        }
+        return fromArcs(nodeIds, latitudes, longitudes, sources, destinations, distances);
+    }
+
+    /**
+     * 由已编号的节点与弧构建 CSR 图，弧 e 的原始边序号为 e，端点为负的弧被忽略
+     * @param nodeIds 升序且无重复的传感器ID
+     * @param sources 弧起点下标
+     * @param destinations 弧终点下标
+     * @param distances 弧距离（公里）
+     */
+    public static CsrGraph fromArcs(int[] nodeIds, double[] latitudes, double[] longitudes,
+                                    int[] sources, int[] destinations, double[] distances) {
+        int n = nodeIds.length;
+
+        // 统计出度
+        int[] offsets = new int[n + 1];
+        int arcCount = 0;
+        for (int e = 0; e < sources.length; e++) {
+            if (sources[e] >= 0 && destinations[e] >= 0) {
+                offsets[sources[e] + 1]++;
+                arcCount++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+
+        // 按起点填充弧，保持原始边顺序
+        int[] targets = new int[arcCount];
+        double[] arcDistances = new double[arcCount];
+        int[] edgeIndices = new int[arcCount];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < sources.length; e++) {
+            if (sources[e] < 0 || destinations[e] < 0) {
+                continue;
+            }
+            int arc = cursor[sources[e]]++;
+            targets[arc] = destinations[e];
+            arcDistances[arc] = distances[e];
+            edgeIndices[arc] = e;
+        }
+
+        return withReverse(nodeIds, latitudes, longitudes, offsets, targets, arcDistances, edgeIndices);
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int arcCount() {
+        return targets.length;
+    }
+
+    /**
+     * 传感器ID -> 稠密下标，不存在时返回 -1
+     */
+    public int indexOf(int sensorId) {
+        int index = Arrays.binarySearch(nodeIds, sensorId);
+        return index >= 0 ? index : -1;
+    }
+
+    public int sensorId(int index) {
+        return nodeIds[index];
+    }
+
+    public double latitude(int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(int index) {
+        return longitudes[index];
+    }
+
+    public int firstArc(int node) {
+        return offsets[node];
+    }
+
+    public int endArc(int node) {
+        return offsets[node + 1];
+    }
+
+    /**
+     * 节点的入边数
+     */
+    public int inDegree(int node) {
+        return reverseOffsets[node + 1] - reverseOffsets[node];
+    }
+
+    public int target(int arc) {
+        return targets[arc];
+    }
+
+    public double distance(int arc) {
+        return distances[arc];
+    }
+
+    public int edgeIndex(int arc) {
+        return edgeIndices[arc];
+    }
+
+    /**
+     * 节点ID、拓扑与弧距离的 CRC32 校验值，用于判断持久化的预处理数据是否仍与图匹配
+     */
+    public long fingerprint() {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        buffer.putInt(nodeIds.length).putInt(targets.length);
+        for (int id : nodeIds) {
+            buffer = flushIfFull(crc, buffer, 4).putInt(id);
+        }
+        for (int offset : offsets) {
+            buffer = flushIfFull(crc, buffer, 4).putInt(offset);
+        }
+        for (int target : targets) {
+            buffer = flushIfFull(crc, buffer, 4).putInt(target);
+        }
+        for (double distance : distances) {
+            buffer = flushIfFull(crc, buffer, 8).putLong(Double.doubleToLongBits(distance));
+        }
+        buffer.flip();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    private static ByteBuffer flushIfFull(CRC32 crc, ByteBuffer buffer, int needed) {
+        if (buffer.remaining() < needed) {
+            buffer.flip();
+            crc.update(buffer);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * 节点ID与拓扑（各节点的出边及其顺序）是否与 other 完全相同，即两图的弧下标一一对应，弧距离可以不同
+     */
+    public boolean sameTopology(CsrGraph other) {
+        return this == other || Arrays.equals(nodeIds, other.nodeIds)
+                && Arrays.equals(offsets, other.offsets) && Arrays.equals(targets, other.targets);
+    }
+
+    /**
+     * 查找 from -> to 的弧，只扫描 from 的出边
+     * @return 弧下标，不存在时返回 -1
+     */
+    public int findArc(int from, int to) {
+        for (int arc = offsets[from], end = offsets[from + 1]; arc < end; arc++) {
+            if (targets[arc] == to) {
+                return arc;
+            }
+        }
+        return -1;
+    }
+}
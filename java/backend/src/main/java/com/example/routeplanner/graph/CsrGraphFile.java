@@ -0,0 +1,211 @@
+package com.example.routeplanner.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * CSR 图的二进制快照文件
+ *
+ * 布局（小端序）：32 字节头部 [魔数, 版本, 节点数, 弧数, 数据源标记, 数据区 CRC32]，
+ * 之后依次为 latitudes、longitudes、distances（double）与 nodeIds、offsets、targets、edgeIndices、
+ * reverseOffsets、reverseArcs、reverseSources（int），double 段在前以保持 8 字节对齐。
+ * 读取时按段 {@link FileChannel#map} 映射并整段复制进数组，不做文本解析与距离计算。
+ * 数据源标记由调用方给出（如 CSV 内容的校验值），不一致时视为快照过期。
+ */
+public final class CsrGraphFile {
+
+    private static final int MAGIC = 0x43535231; // "CSR1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    // 单次映射的最大字节数，超过 2GB 的段分块映射
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    private CsrGraphFile() {
+    }
+
+    /**
+     * 写出快照
+     * @param sourceStamp 生成快照所用数据源的标记
+     */
+    public static void write(CsrGraph graph, long sourceStamp, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            SectionWriter writer = new SectionWriter(channel);
+            writer.doubles(graph.latitudes);
+            writer.doubles(graph.longitudes);
+            writer.doubles(graph.distances);
+            writer.ints(graph.nodeIds);
+            writer.ints(graph.offsets);
+            writer.ints(graph.targets);
+            writer.ints(graph.edgeIndices);
+            writer.ints(graph.reverseOffsets);
+            writer.ints(graph.reverseArcs);
+            writer.ints(graph.reverseSources);
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(graph.nodeCount()).putInt(graph.arcCount())
+                    .putLong(sourceStamp).putLong(writer.crc.getValue());
+            header.flip();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * 映射并读取快照
+     * @param sourceStamp 当前数据源的标记
+     * @throws IOException 文件损坏、版本不符或与数据源不匹配
+     */
+    public static CsrGraph read(Path path, long sourceStamp) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("路网快照文件头部不完整");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("不是路网快照文件");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("路网快照版本不符: " + version);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            if (header.getLong() != sourceStamp) {
+                throw new IOException("路网快照与当前数据源不匹配");
+            }
+            long checksum = header.getLong();
+            if (n < 0 || m < 0 || channel.size() != HEADER_BYTES + 8L * (2L * n + m) + 4L * (3L * n + 2 + 4L * m)) {
+                throw new IOException("路网快照文件大小与头部不符");
+            }
+
+            SectionReader reader = new SectionReader(channel, HEADER_BYTES);
+            double[] latitudes = reader.doubles(n);
+            double[] longitudes = reader.doubles(n);
+            double[] distances = reader.doubles(m);
+            int[] nodeIds = reader.ints(n);
+            int[] offsets = reader.ints(n + 1);
+            int[] targets = reader.ints(m);
+            int[] edgeIndices = reader.ints(m);
+            int[] reverseOffsets = reader.ints(n + 1);
+            int[] reverseArcs = reader.ints(m);
+            int[] reverseSources = reader.ints(m);
+            if (reader.crc.getValue() != checksum) {
+                throw new IOException("路网快照校验失败");
+            }
+            if (offsets[0] != 0 || offsets[n] != m || reverseOffsets[0] != 0 || reverseOffsets[n] != m
+                    || !inRange(targets, n) || !inRange(reverseSources, n)
+                    || !inRange(reverseArcs, m) || !inRange(edgeIndices, m)) {
+                throw new IOException("路网快照数据无效");
+            }
+            return new CsrGraph(nodeIds, latitudes, longitudes, offsets, targets, distances, edgeIndices,
+                    reverseOffsets, reverseArcs, reverseSources);
+        }
+    }
+
+    private static boolean inRange(int[] values, int bound) {
+        for (int value : values) {
+            if (value < 0 || value >= bound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 顺序写出数组段，同时累计 CRC32
+     */
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32 crc = new CRC32();
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void doubles(double[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                int count = Math.min(values.length - i, buffer.remaining() / 8);
+                if (count == 0) {
+                    flush();
+                    continue;
+                }
+                buffer.asDoubleBuffer().put(values, i, count);
+                buffer.position(buffer.position() + count * 8);
+                i += count;
+            }
+        }
+
+        void ints(int[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                int count = Math.min(values.length - i, buffer.remaining() / 4);
+                if (count == 0) {
+                    flush();
+                    continue;
+                }
+                buffer.asIntBuffer().put(values, i, count);
+                buffer.position(buffer.position() + count * 4);
+                i += count;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 顺序映射数组段并复制进新数组，同时累计 CRC32
+     */
+    private static final class SectionReader {
+        private final FileChannel channel;
+        private long position;
+        final CRC32 crc = new CRC32();
+
+        SectionReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        double[] doubles(int length) throws IOException {
+            double[] values = new double[length];
+            for (int i = 0; i < length; ) {
+                int count = Math.min(length - i, MAX_CHUNK_BYTES / 8);
+                map(count * 8L).asDoubleBuffer().get(values, i, count);
+                i += count;
+            }
+            return values;
+        }
+
+        int[] ints(int length) throws IOException {
+            int[] values = new int[length];
+            for (int i = 0; i < length; ) {
+                int count = Math.min(length - i, MAX_CHUNK_BYTES / 4);
+                map(count * 4L).asIntBuffer().get(values, i, count);
+                i += count;
+            }
+            return values;
+        }
+
+        private ByteBuffer map(long bytes) throws IOException {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+            position += bytes;
+            crc.update(mapped.duplicate());
+            return mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
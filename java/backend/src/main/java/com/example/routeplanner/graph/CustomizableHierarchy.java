@@ -0,0 +1,539 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * 可定制收缩层次（Customizable Contraction Hierarchies）
+ *
+ * 预处理只依赖拓扑与坐标：按几何嵌套剖分确定节点顺序（分隔集排在两半之后），
+ * 再按该顺序消元得到弦图补全，边集合与权重无关。权重变化时只需调用
+ * {@link #customize(ArcWeights)} 沿下三角重新计算捷径权重，无需重新预处理。
+ *
+ * 内部一律使用层级编号 r（0..n-1，越大越高），每条层次边 {lo, hi} 存放在 lo 的向上邻接中，
+ * 权重按方向分两个槽位：2e 为 lo -> hi，2e+1 为 hi -> lo。
+ */
+public final class CustomizableHierarchy {
+
+    // 嵌套剖分递归到该规模后不再切分
+    private static final int DISSECTION_LEAF_SIZE = 8;
+
+    private final CsrGraph graph;
+    // 节点下标 -> 层级
+    final int[] ranks;
+    // 层级 -> 节点下标
+    final int[] nodesByRank;
+
+    // 层级 r 的向上邻居 upNeighbors[upOffsets[r] .. upOffsets[r+1])，按层级升序，位置即边号
+    final int[] upOffsets;
+    final int[] upNeighbors;
+    // 边 -> 低端层级
+    final int[] edgeTails;
+    // 消元树父节点（最低的向上邻居），根为 -1
+    final int[] parents;
+    // 原始弧 -> 权重槽位，自环为 -1
+    final int[] arcSlots;
+
+    private final ThreadLocal<SearchWorkspace> forwardWorkspaces;
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    private CustomizableHierarchy(CsrGraph graph, int[] nodesByRank) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.nodesByRank = nodesByRank;
+        this.ranks = new int[n];
+        for (int r = 0; r < n; r++) {
+            ranks[nodesByRank[r]] = r;
+        }
+
+        int[][] upward = eliminate(graph, ranks, nodesByRank);
+        this.upOffsets = new int[n + 1];
+        for (int r = 0; r < n; r++) {
+            upOffsets[r + 1] = upOffsets[r] + upward[r].length;
+        }
+        this.upNeighbors = new int[upOffsets[n]];
+        this.edgeTails = new int[upOffsets[n]];
+        this.parents = new int[n];
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(upward[r], 0, upNeighbors, upOffsets[r], upward[r].length);
+            Arrays.fill(edgeTails, upOffsets[r], upOffsets[r + 1], r);
+            parents[r] = upward[r].length > 0 ? upward[r][0] : -1;
+        }
+
+        this.arcSlots = new int[graph.arcCount()];
+        for (int u = 0; u < n; u++) {
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int from = ranks[u];
+                int to = ranks[graph.target(arc)];
+                if (from == to) {
+                    arcSlots[arc] = -1;
+                } else if (from < to) {
+                    arcSlots[arc] = 2 * findEdge(from, to);
+                } else {
+                    arcSlots[arc] = 2 * findEdge(to, from) + 1;
+                }
+            }
+        }
+
+        this.forwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(n));
+        this.backwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(n));
+    }
+
+    private CustomizableHierarchy(CsrGraph graph, CustomizableHierarchy shared) {
+        this.graph = graph;
+        this.ranks = shared.ranks;
+        this.nodesByRank = shared.nodesByRank;
+        this.upOffsets = shared.upOffsets;
+        this.upNeighbors = shared.upNeighbors;
+        this.edgeTails = shared.edgeTails;
+        this.parents = shared.parents;
+        this.arcSlots = shared.arcSlots;
+        int n = graph.nodeCount();
+        this.forwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(n));
+        this.backwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(n));
+    }
+
+    /**
+     * 与权重无关的预处理：节点排序与弦图补全
+     */
+    public static CustomizableHierarchy build(CsrGraph graph) {
+        int n = graph.nodeCount();
+        int[] nodes = new int[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = i;
+        }
+        int[] nodesByRank = new int[n];
+        new NestedDissection(graph, nodes, nodesByRank).dissect(0, n);
+        return new CustomizableHierarchy(graph, nodesByRank);
+    }
+
+    /**
+     * 层次结构只依赖拓扑，拓扑相同的图（如只改变了弧距离）可直接共享
+     * @throws IllegalArgumentException other 与当前图拓扑不同
+     */
+    public CustomizableHierarchy withGraph(CsrGraph other) {
+        if (!graph.sameTopology(other)) {
+            throw new IllegalArgumentException("图的拓扑不同，无法共享层次结构");
+        }
+        return other == graph ? this : new CustomizableHierarchy(other, this);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int edgeCount() {
+        return upNeighbors.length;
+    }
+
+    /**
+     * 对给定弧权重做定制：按层级升序枚举下三角 {r, u, w}，用 u -> r -> w 更新 u -> w
+     */
+    public CustomizedMetric customize(ArcWeights weights) {
+        int slots = 2 * upNeighbors.length;
+        double[] slotWeights = new double[slots];
+        int[] slotArcs = new int[slots];
+        int[] slotMiddles = new int[slots];
+        Arrays.fill(slotWeights, Double.POSITIVE_INFINITY);
+        Arrays.fill(slotArcs, -1);
+        Arrays.fill(slotMiddles, -1);
+
+        for (int arc = 0; arc < arcSlots.length; arc++) {
+            int slot = arcSlots[arc];
+            if (slot >= 0) {
+                double weight = weights.weight(arc);
+                if (weight < slotWeights[slot]) {
+                    slotWeights[slot] = weight;
+                    slotArcs[slot] = arc;
+                }
+            }
+        }
+
+        for (int r = 0; r < ranks.length; r++) {
+            int begin = upOffsets[r];
+            int end = upOffsets[r + 1];
+            for (int i = begin; i < end; i++) {
+                int u = upNeighbors[i];
+                double upToLow = slotWeights[2 * i + 1];   // u -> r
+                double lowToUp = slotWeights[2 * i];       // r -> u
+                // u 的向上邻接包含 r 的全部更高邻居，且同样按层级升序，可线性合并
+                int k = upOffsets[u];
+                for (int j = i + 1; j < end; j++) {
+                    int w = upNeighbors[j];
+                    while (upNeighbors[k] != w) {
+                        k++;
+                    }
+                    double forward = upToLow + slotWeights[2 * j];       // u -> r -> w
+                    if (forward < slotWeights[2 * k]) {
+                        slotWeights[2 * k] = forward;
+                        slotMiddles[2 * k] = r;
+                    }
+                    double backward = slotWeights[2 * j + 1] + lowToUp;  // w -> r -> u
+                    if (backward < slotWeights[2 * k + 1]) {
+                        slotWeights[2 * k + 1] = backward;
+                        slotMiddles[2 * k + 1] = r;
+                    }
+                }
+            }
+        }
+        return new CustomizedMetric(this, weights, slotWeights, slotArcs, slotMiddles);
+    }
+
+    /**
+     * 在定制后的层次上查询最短路径
+     *
+     * 向上搜索空间恰为消元树上的祖先，因此两侧都只需沿父指针按层级升序扫描一遍，不需要堆。
+     */
+    public PathSearchResult search(CustomizedMetric metric, int source, int target) {
+        if (metric.hierarchy != this) {
+            throw new IllegalArgumentException("定制权重不属于该层次");
+        }
+        double[] weights = metric.slotWeights;
+        SearchWorkspace forward = forwardWorkspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+
+        int s = ranks[source];
+        int t = ranks[target];
+        forward.update(s, 0.0, -1, -1);
+        for (int x = s; x != -1; x = parents[x]) {
+            relaxUpward(forward, x, weights, 0);
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        backward.update(t, 0.0, -1, -1);
+        for (int x = t; x != -1; x = parents[x]) {
+            double candidate = forward.distance(x) + backward.distance(x);
+            if (candidate < best) {
+                best = candidate;
+                meeting = x;
+            }
+            relaxUpward(backward, x, weights, 1);
+        }
+
+        if (meeting < 0) {
+            return PathSearchResult.NOT_FOUND;
+        }
+        return buildResult(metric, source, forward, backward, meeting);
+    }
+
+    private void relaxUpward(SearchWorkspace ws, int x, double[] weights, int direction) {
+        double dist = ws.distance(x);
+        if (dist == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        for (int e = upOffsets[x], end = upOffsets[x + 1]; e < end; e++) {
+            int y = upNeighbors[e];
+            double newDist = dist + weights[2 * e + direction];
+            if (newDist < ws.distance(y)) {
+                ws.update(y, newDist, x, e);
+            }
+        }
+    }
+
+    private PathSearchResult buildResult(CustomizedMetric metric, int source,
+                                         SearchWorkspace forward, SearchWorkspace backward, int meeting) {
+        // 正向链 source -> meeting 的槽位（低 -> 高），反向链 meeting -> target（高 -> 低）
+        int forwardEdges = 0;
+        for (int x = meeting; forward.prev[x] != -1; x = forward.prev[x]) {
+            forwardEdges++;
+        }
+        int backwardEdges = 0;
+        for (int x = meeting; backward.prev[x] != -1; x = backward.prev[x]) {
+            backwardEdges++;
+        }
+        int[] chain = new int[forwardEdges + backwardEdges];
+        for (int x = meeting, i = forwardEdges - 1; forward.prev[x] != -1; x = forward.prev[x], i--) {
+            chain[i] = 2 * forward.prevArc[x];
+        }
+        for (int x = meeting, i = forwardEdges; backward.prev[x] != -1; x = backward.prev[x], i++) {
+            chain[i] = 2 * backward.prevArc[x] + 1;
+        }
+
+        int[] arcs = new int[Math.max(16, chain.length)];
+        int arcCount = 0;
+        int[] stack = new int[16];
+        for (int slot : chain) {
+            int top = 0;
+            stack[top++] = slot;
+            while (top > 0) {
+                int current = stack[--top];
+                int middle = metric.slotMiddles[current];
+                if (middle < 0) {
+                    if (arcCount == arcs.length) {
+                        arcs = Arrays.copyOf(arcs, arcCount * 2);
+                    }
+                    arcs[arcCount++] = metric.slotArcs[current];
+                    continue;
+                }
+                int edge = current >> 1;
+                int low = edgeTails[edge];
+                int high = upNeighbors[edge];
+                int lowEdge = findEdge(middle, low);
+                int highEdge = findEdge(middle, high);
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                // 先压入后半段
+                if ((current & 1) == 0) {
+                    // low -> middle -> high
+                    stack[top++] = 2 * highEdge;
+                    stack[top++] = 2 * lowEdge + 1;
+                } else {
+                    // high -> middle -> low
+                    stack[top++] = 2 * lowEdge;
+                    stack[top++] = 2 * highEdge + 1;
+                }
+            }
+        }
+
+        arcs = Arrays.copyOf(arcs, arcCount);
+        int[] path = new int[arcCount + 1];
+        path[0] = source;
+        double totalWeight = 0.0;
+        for (int i = 0; i < arcCount; i++) {
+            path[i + 1] = graph.targets[arcs[i]];
+            totalWeight += metric.weights.weight(arcs[i]);
+        }
+        return new PathSearchResult(path, arcs, totalWeight);
+    }
+
+    /**
+     * 边 {low, high} 的编号，要求 low < high 且该边存在
+     */
+    private int findEdge(int low, int high) {
+        int index = Arrays.binarySearch(upNeighbors, upOffsets[low], upOffsets[low + 1], high);
+        if (index < 0) {
+            throw new IllegalStateException("层次边不存在: " + low + " -> " + high);
+        }
+        return index;
+    }
+
+    /**
+     * 按层级顺序消元：r 的向上邻居（除父节点外）并入父节点的向上邻居，得到弦图补全
+     * @return 每个层级按层级升序的向上邻居
+     */
+    private static int[][] eliminate(CsrGraph graph, int[] ranks, int[] nodesByRank) {
+        int n = ranks.length;
+        int[][] upward = new int[n][];
+        int[] buffer = new int[16];
+        for (int r = 0; r < n; r++) {
+            int node = nodesByRank[r];
+            int count = 0;
+            int degree = (graph.endArc(node) - graph.firstArc(node))
+                    + (graph.reverseOffsets[node + 1] - graph.reverseOffsets[node]);
+            if (buffer.length < degree) {
+                buffer = new int[degree];
+            }
+            for (int arc = graph.firstArc(node), end = graph.endArc(node); arc < end; arc++) {
+                int other = ranks[graph.target(arc)];
+                if (other > r) {
+                    buffer[count++] = other;
+                }
+            }
+            for (int slot = graph.reverseOffsets[node], end = graph.reverseOffsets[node + 1]; slot < end; slot++) {
+                int other = ranks[graph.reverseSources[slot]];
+                if (other > r) {
+                    buffer[count++] = other;
+                }
+            }
+            upward[r] = sortedUnique(buffer, count);
+        }
+
+        for (int r = 0; r < n; r++) {
+            int[] up = upward[r];
+            if (up.length > 1) {
+                int parent = up[0];
+                upward[parent] = mergeTail(upward[parent], up);
+            }
+        }
+        return upward;
+    }
+
+    private static int[] sortedUnique(int[] values, int count) {
+        int[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || sorted[unique - 1] != sorted[i]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return unique == count ? sorted : Arrays.copyOf(sorted, unique);
+    }
+
+    /**
+     * 有序合并 a 与 b[1..]（b[0] 为 a 的所有者本身）
+     */
+    private static int[] mergeTail(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length - 1];
+        int i = 0;
+        int j = 1;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (count == 0 || merged[count - 1] != next) {
+                merged[count++] = next;
+            }
+        }
+        return count == merged.length ? merged : Arrays.copyOf(merged, count);
+    }
+
+    /**
+     * 几何嵌套剖分：按跨度更大的坐标维度取中位数切分，较小一侧的边界点作为分隔集，
+     * 先递归排列两半，分隔集排在最后（层级最高）。
+     */
+    private static final class NestedDissection {
+        private final CsrGraph graph;
+        private final int[] nodes;
+        private final int[] output;
+        private final int[] marks;
+        private int nextRank;
+        private int epoch;
+
+        NestedDissection(CsrGraph graph, int[] nodes, int[] output) {
+            this.graph = graph;
+            this.nodes = nodes;
+            this.output = output;
+            this.marks = new int[graph.nodeCount()];
+        }
+
+        void dissect(int lo, int hi) {
+            if (hi - lo <= DISSECTION_LEAF_SIZE) {
+                for (int i = lo; i < hi; i++) {
+                    output[nextRank++] = nodes[i];
+                }
+                return;
+            }
+
+            boolean byLatitude = latitudeSpanWider(lo, hi);
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi, mid, byLatitude);
+
+            // 标记两半：左半为 epoch，右半为 epoch + 1
+            epoch += 2;
+            int left = epoch;
+            int right = epoch + 1;
+            for (int i = lo; i < hi; i++) {
+                marks[nodes[i]] = i < mid ? left : right;
+            }
+            int leftBoundary = 0;
+            int rightBoundary = 0;
+            for (int i = lo; i < hi; i++) {
+                int node = nodes[i];
+                if (touches(node, marks[node] == left ? right : left)) {
+                    if (i < mid) {
+                        leftBoundary++;
+                    } else {
+                        rightBoundary++;
+                    }
+                }
+            }
+
+            // 分隔集取较小的一侧边界，划分为 [左半 | 右半 | 分隔集]
+            int separatorSide = leftBoundary <= rightBoundary ? left : right;
+            int otherSide = separatorSide == left ? right : left;
+            int[] segment = Arrays.copyOfRange(nodes, lo, hi);
+            int[] separator = new int[Math.min(leftBoundary, rightBoundary)];
+            int separatorCount = 0;
+            int write = lo;
+            int leftEnd = lo;
+            for (int pass = 0; pass < 2; pass++) {
+                int side = pass == 0 ? left : right;
+                for (int node : segment) {
+                    if (marks[node] != side) {
+                        continue;
+                    }
+                    if (side == separatorSide && touches(node, otherSide)) {
+                        separator[separatorCount++] = node;
+                    } else {
+                        nodes[write++] = node;
+                    }
+                }
+                if (pass == 0) {
+                    leftEnd = write;
+                }
+            }
+            System.arraycopy(separator, 0, nodes, write, separatorCount);
+
+            dissect(lo, leftEnd);
+            dissect(leftEnd, write);
+            for (int i = 0; i < separatorCount; i++) {
+                output[nextRank++] = separator[i];
+            }
+        }
+
+        private boolean touches(int node, int side) {
+            for (int arc = graph.firstArc(node), end = graph.endArc(node); arc < end; arc++) {
+                if (marks[graph.target(arc)] == side) {
+                    return true;
+                }
+            }
+            for (int slot = graph.reverseOffsets[node], end = graph.reverseOffsets[node + 1]; slot < end; slot++) {
+                if (marks[graph.reverseSources[slot]] == side) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean latitudeSpanWider(int lo, int hi) {
+            double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+            double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+            for (int i = lo; i < hi; i++) {
+                int node = nodes[i];
+                minLat = Math.min(minLat, graph.latitudes[node]);
+                maxLat = Math.max(maxLat, graph.latitudes[node]);
+                minLon = Math.min(minLon, graph.longitudes[node]);
+                maxLon = Math.max(maxLon, graph.longitudes[node]);
+            }
+            double cosLat = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+            return maxLat - minLat >= (maxLon - minLon) * cosLat;
+        }
+
+        private double coordinate(int node, boolean byLatitude) {
+            return byLatitude ? graph.latitudes[node] : graph.longitudes[node];
+        }
+
+        /**
+         * 快速选择，使 nodes[k] 为 [lo, hi) 中按坐标的第 k 小
+         */
+        private void select(int lo, int hi, int k, boolean byLatitude) {
+            int left = lo;
+            int right = hi - 1;
+            while (left < right) {
+                double pivot = coordinate(nodes[(left + right) >>> 1], byLatitude);
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (coordinate(nodes[i], byLatitude) < pivot) {
+                        i++;
+                    }
+                    while (coordinate(nodes[j], byLatitude) > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        int tmp = nodes[i];
+                        nodes[i] = nodes[j];
+                        nodes[j] = tmp;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.routeplanner.graph;
+
+/**
+ * 可定制收缩层次在某一组弧权重下的定制结果
+ *
+ * 每条层次边两个方向各有一个槽位：权重、直接对应的原始弧（无捷径时），
+ * 以及作为捷径时经过的中间层级（-1 表示直接使用原始弧）。定制完成后不可变，可被多个线程共享。
+ */
+public final class CustomizedMetric {
+
+    final CustomizableHierarchy hierarchy;
+    final ArcWeights weights;
+    final double[] slotWeights;
+    final int[] slotArcs;
+    final int[] slotMiddles;
+
+    CustomizedMetric(CustomizableHierarchy hierarchy, ArcWeights weights,
+                     double[] slotWeights, int[] slotArcs, int[] slotMiddles) {
+        this.hierarchy = hierarchy;
+        this.weights = weights;
+        this.slotWeights = slotWeights;
+        this.slotArcs = slotArcs;
+        this.slotMiddles = slotMiddles;
+    }
+
+    public CustomizableHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    public ArcWeights getWeights() {
+        return weights;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 叠加在 CSR 图上的不可变弧距离覆盖
+ *
+ * 持有一份按弧下标存放的有效距离数组：未覆盖的弧取图中的距离，封闭的弧为
+ * {@link Double#POSITIVE_INFINITY}，搜索时不会经过。图的拓扑与弧下标不变，
+ * 依赖弧下标的流量表、层次结构与地标仍可使用。每次变更创建新对象（复制一次距离数组），
+ * 查询读取时无需同步。
+ */
+public final class EdgeOverlay {
+
+    final CsrGraph graph;
+    final double[] distances;
+    // 所有弧上 有效距离 / 图中距离 的下界（不大于 1），用于缩放基于图距离的启发下界；
+    // 图中距离为正无穷的弧（已合并的封闭）被恢复时为 0，启发下界失效直至重新合并
+    private final double distanceScale;
+    private final int overriddenArcs;
+
+    private EdgeOverlay(CsrGraph graph, double[] distances, double distanceScale, int overriddenArcs) {
+        this.graph = graph;
+        this.distances = distances;
+        this.distanceScale = distanceScale;
+        this.overriddenArcs = overriddenArcs;
+    }
+
+    /**
+     * 不覆盖任何弧，直接共享图的距离数组
+     */
+    public static EdgeOverlay empty(CsrGraph graph) {
+        return new EdgeOverlay(graph, graph.distances, 1.0, 0);
+    }
+
+    /**
+     * @param arcDistances 弧下标 -> 有效距离（公里），须为非负数，正无穷表示封闭
+     */
+    public static EdgeOverlay of(CsrGraph graph, Map<Integer, Double> arcDistances) {
+        if (arcDistances.isEmpty()) {
+            return empty(graph);
+        }
+        double[] distances = Arrays.copyOf(graph.distances, graph.arcCount());
+        double scale = 1.0;
+        for (Map.Entry<Integer, Double> entry : arcDistances.entrySet()) {
+            int arc = entry.getKey();
+            double distance = entry.getValue();
+            if (!(distance >= 0)) {
+                throw new IllegalArgumentException("弧距离不能为负数: " + distance);
+            }
+            distances[arc] = distance;
+            // 只有变短的弧降低下界；图中已为正无穷的弧再封闭时不参与（避免 inf / inf）
+            if (distance < graph.distances[arc]) {
+                scale = Math.min(scale, distance / graph.distances[arc]);
+            }
+        }
+        return new EdgeOverlay(graph, distances, scale, arcDistances.size());
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public boolean isEmpty() {
+        return overriddenArcs == 0;
+    }
+
+    /**
+     * 被覆盖（含封闭）的弧数
+     */
+    public int overriddenArcs() {
+        return overriddenArcs;
+    }
+
+    public double getDistanceScale() {
+        return distanceScale;
+    }
+
+    /**
+     * 弧的有效距离，封闭时为正无穷
+     */
+    public double distance(int arc) {
+        return distances[arc];
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 地理计算工具
+ */
+public final class GeoUtils {
+
+    // 地球半径（公里）
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * 计算两点间距离（使用 Haversine 公式）
+     */
+    public static double haversineKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double lat1 = Math.toRadians(latitude1);
+        double lon1 = Math.toRadians(longitude1);
+        double lat2 = Math.toRadians(latitude2);
+        double lon2 = Math.toRadians(longitude2);
+
+        double dlat = lat2 - lat1;
+        double dlon = lon2 - lon1;
+
+        double a = Math.sin(dlat / 2) * Math.sin(dlat / 2) +
+                Math.cos(lat1) * Math.cos(lat2) *
+                        Math.sin(dlon / 2) * Math.sin(dlon / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return c * EARTH_RADIUS_KM;
+    }
+
+    /**
+     * 平面点集的凸包（Andrew 单调链），区域范围较小时可直接以经度、纬度作为平面坐标
+     * @return 凸包顶点在输入中的下标，逆时针排列，不含共线点；点数少于 3 时返回全部不同的点
+     */
+    public static int[] convexHull(double[] xs, double[] ys) {
+        Integer[] order = new Integer[xs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> xs[i]).thenComparingDouble(i -> ys[i]));
+
+        int[] hull = new int[2 * order.length + 1];
+        int size = 0;
+        // 下链
+        for (int i = 0; i < order.length; i++) {
+            int p = order[i];
+            if (i > 0 && xs[p] == xs[order[i - 1]] && ys[p] == ys[order[i - 1]]) {
+                continue;
+            }
+            while (size >= 2 && cross(xs, ys, hull[size - 2], hull[size - 1], p) <= 0) {
+                size--;
+            }
+            hull[size++] = p;
+        }
+        // 上链
+        int lower = size + 1;
+        for (int i = order.length - 2; i >= 0; i--) {
+            int p = order[i];
+            if (xs[p] == xs[order[i + 1]] && ys[p] == ys[order[i + 1]]) {
+                continue;
+            }
+            while (size >= lower && cross(xs, ys, hull[size - 2], hull[size - 1], p) <= 0) {
+                size--;
+            }
+            hull[size++] = p;
+        }
+        // 末尾回到起点，去掉重复
+        return Arrays.copyOf(hull, Math.max(size - 1, Math.min(size, 1)));
+    }
+
+    private static double cross(double[] xs, double[] ys, int o, int a, int b) {
+        return (xs[a] - xs[o]) * (ys[b] - ys[o]) - (ys[a] - ys[o]) * (xs[b] - xs[o]);
+    }
+}
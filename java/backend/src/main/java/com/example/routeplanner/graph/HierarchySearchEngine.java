@@ -0,0 +1,182 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * 基于收缩层次的按距离最短路径查询
+ *
+ * 正反两侧只沿层级升高的边搜索，并使用 stall-on-demand 跳过可由更高层节点以更短距离到达的节点；
+ * 某侧堆顶不小于当前最优值 mu 时该侧停止。结果中的捷径被展开回原始 CSR 弧，
+ * 总权重按路径顺序重新累加，与 {@link ShortestPathEngine} 的结果一致。
+ */
+public final class HierarchySearchEngine {
+
+    private final CsrGraph graph;
+    private final ContractionHierarchy hierarchy;
+    private final ThreadLocal<SearchWorkspace> forwardWorkspaces;
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    public HierarchySearchEngine(CsrGraph graph, ContractionHierarchy hierarchy) {
+        if (hierarchy.nodeCount() != graph.nodeCount()) {
+            throw new IllegalArgumentException("收缩层次与图的节点数不匹配");
+        }
+        this.graph = graph;
+        this.hierarchy = hierarchy;
+        this.forwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+        this.backwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * 按弧距离搜索最短路径
+     * @param source 起点下标
+     * @param target 终点下标
+     */
+    public PathSearchResult search(int source, int target) {
+        SearchWorkspace forward = forwardWorkspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+
+        forward.update(source, 0.0, -1, -1);
+        forward.heap.insertOrDecrease(source, 0.0);
+        backward.update(target, 0.0, -1, -1);
+        backward.heap.insertOrDecrease(target, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        boolean forwardActive = true;
+        boolean backwardActive = true;
+
+        while (forwardActive || backwardActive) {
+            forwardActive = forwardActive && !forward.heap.isEmpty() && forward.heap.minKey() < best;
+            backwardActive = backwardActive && !backward.heap.isEmpty() && backward.heap.minKey() < best;
+            boolean expandForward;
+            if (forwardActive && backwardActive) {
+                expandForward = forward.heap.minKey() <= backward.heap.minKey();
+            } else if (forwardActive || backwardActive) {
+                expandForward = forwardActive;
+            } else {
+                break;
+            }
+
+            SearchWorkspace ws = expandForward ? forward : backward;
+            SearchWorkspace other = expandForward ? backward : forward;
+            double dist = ws.heap.minKey();
+            int current = ws.heap.poll();
+
+            double candidate = dist + other.distance(current);
+            if (candidate < best) {
+                best = candidate;
+                meeting = current;
+            }
+
+            if (expandForward) {
+                if (!isStalled(forward, current, dist, hierarchy.downOffsets, hierarchy.downEdges, hierarchy.edgeFrom)) {
+                    relax(forward, current, dist, hierarchy.upOffsets, hierarchy.upEdges, hierarchy.edgeTo);
+                }
+            } else {
+                if (!isStalled(backward, current, dist, hierarchy.upOffsets, hierarchy.upEdges, hierarchy.edgeTo)) {
+                    relax(backward, current, dist, hierarchy.downOffsets, hierarchy.downEdges, hierarchy.edgeFrom);
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return PathSearchResult.NOT_FOUND;
+        }
+        return buildResult(source, forward, backward, meeting);
+    }
+
+    private void relax(SearchWorkspace ws, int current, double dist, int[] offsets, int[] edges, int[] neighbors) {
+        double[] weights = hierarchy.edgeWeights;
+        for (int i = offsets[current], end = offsets[current + 1]; i < end; i++) {
+            int edge = edges[i];
+            int neighbor = neighbors[edge];
+            double newDist = dist + weights[edge];
+            if (newDist < ws.distance(neighbor)) {
+                ws.update(neighbor, newDist, current, edge);
+                ws.heap.insertOrDecrease(neighbor, newDist);
+            }
+        }
+    }
+
+    /**
+     * 若某个更高层邻居经相反方向的边能以更短距离到达 current，则 current 不在最短路上
+     */
+    private boolean isStalled(SearchWorkspace ws, int current, double dist, int[] offsets, int[] edges, int[] neighbors) {
+        double[] weights = hierarchy.edgeWeights;
+        for (int i = offsets[current], end = offsets[current + 1]; i < end; i++) {
+            int edge = edges[i];
+            if (ws.distance(neighbors[edge]) + weights[edge] < dist) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拼接两侧的层次边并展开为原始弧
+     */
+    private PathSearchResult buildResult(int source, SearchWorkspace forward, SearchWorkspace backward, int meeting) {
+        int[] arcs = new int[16];
+        int arcCount = 0;
+        int[] stack = new int[16];
+
+        int forwardEdges = 0;
+        for (int v = meeting; forward.prev[v] != -1; v = forward.prev[v]) {
+            forwardEdges++;
+        }
+        int[] chain = new int[forwardEdges];
+        for (int v = meeting, i = forwardEdges - 1; forward.prev[v] != -1; v = forward.prev[v], i--) {
+            chain[i] = forward.prevArc[v];
+        }
+
+        for (int i = 0, v = meeting; i < forwardEdges || backward.prev[v] != -1; i++) {
+            int edge;
+            if (i < forwardEdges) {
+                edge = chain[i];
+            } else {
+                edge = backward.prevArc[v];
+                v = backward.prev[v];
+            }
+
+            // 深度优先展开捷径，先压入第二条子边
+            int top = 0;
+            stack[top++] = edge;
+            while (top > 0) {
+                int e = stack[--top];
+                int arc = hierarchy.originalArcs[e];
+                if (arc >= 0) {
+                    if (arcCount == arcs.length) {
+                        arcs = Arrays.copyOf(arcs, arcCount * 2);
+                    }
+                    arcs[arcCount++] = arc;
+                } else {
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = hierarchy.secondChildren[e];
+                    stack[top++] = hierarchy.firstChildren[e];
+                }
+            }
+        }
+
+        arcs = Arrays.copyOf(arcs, arcCount);
+        int[] path = new int[arcCount + 1];
+        path[0] = source;
+        double totalWeight = 0.0;
+        for (int i = 0; i < arcCount; i++) {
+            path[i + 1] = graph.targets[arcs[i]];
+            totalWeight += graph.distances[arcs[i]];
+        }
+        return new PathSearchResult(path, arcs, totalWeight);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * 以节点下标为元素的索引二叉最小堆，支持 decrease-key
+ *
+ * 堆数组与键数组按堆位置并列存放，positions 记录节点在堆中的位置（不在堆中为 -1）。
+ */
+final class IndexedMinHeap {
+
+    private final int[] heap;
+    private final double[] keys;
+    private final int[] positions;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.keys = new double[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int node) {
+        return positions[node] >= 0;
+    }
+
+    double minKey() {
+        return keys[0];
+    }
+
+    /**
+     * 清空堆，只重置仍在堆中的元素
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * 插入节点；若节点已在堆中且新键更小则执行 decrease-key
+     */
+    void insertOrDecrease(int node, double key) {
+        int pos = positions[node];
+        if (pos < 0) {
+            pos = size++;
+        } else if (key >= keys[pos]) {
+            return;
+        }
+        siftUp(pos, node, key);
+    }
+
+    /**
+     * 弹出键最小的节点
+     */
+    int poll() {
+        int min = heap[0];
+        positions[min] = -1;
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, heap[last], keys[last]);
+        }
+        return min;
+    }
+
+    private void siftUp(int pos, int node, double key) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(pos, heap[parent], keys[parent]);
+            pos = parent;
+        }
+        place(pos, node, key);
+    }
+
+    private void siftDown(int pos, int node, double key) {
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) {
+                child = right;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            place(pos, heap[child], keys[child]);
+            pos = child;
+        }
+        place(pos, node, key);
+    }
+
+    private void place(int pos, int node, double key) {
+        heap[pos] = node;
+        keys[pos] = key;
+        positions[node] = pos;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * ALT（A*、地标、三角不等式）预处理结果
+ *
+ * 地标按最远点策略选取：每次取与已选地标的最小距离最大的节点，不可达节点视为无穷远，
+ * 因此各连通分量都会分到地标。对每个地标按弧距离各做一次正向和反向全图 Dijkstra，
+ * 得到 d(L, v) 与 d(v, L)，以 float 按节点连续存放（node * count + l）。
+ * 由三角不等式，max(d(L, t) - d(L, v), d(v, L) - d(t, L)) 是 v 到 t 距离的下界；
+ * 任意权重满足 weight(arc) ≥ minFactor * distance(arc)，下界乘以 minFactor 后对其仍可采纳，
+ * 因此一份预处理适用于所有时间点与 alpha ≥ 0。
+ */
+public final class Landmarks {
+
+    // float 存储的相对舍入误差上界（2^-24）的两倍，计算下界时按两端距离之和扣除
+    private static final double FLOAT_ERROR = 0x1p-23;
+
+    private final CsrGraph graph;
+    private final int count;
+    private final int[] landmarkNodes;
+    // d(L, v)，下标为 v * count + l
+    private final float[] fromLandmark;
+    // d(v, L)，下标为 v * count + l
+    private final float[] toLandmark;
+
+    private Landmarks(CsrGraph graph, int[] landmarkNodes, float[] fromLandmark, float[] toLandmark) {
+        this.graph = graph;
+        this.count = landmarkNodes.length;
+        this.landmarkNodes = landmarkNodes;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * 选取地标并计算距离表
+     * @param count 地标个数，超过节点数时取节点数
+     */
+    public static Landmarks build(CsrGraph graph, int count) {
+        int n = graph.nodeCount();
+        int k = Math.min(count, n);
+        if (k <= 0) {
+            throw new IllegalArgumentException("地标个数必须为正数");
+        }
+
+        double[] dist = new double[n];
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        // 各节点到已选地标（正向）的最小距离
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+
+        int[] landmarkNodes = new int[k];
+        float[] fromLandmark = new float[n * k];
+        float[] toLandmark = new float[n * k];
+
+        // 第一个地标取距节点 0 最远的节点，避免落在路网内部
+        shortestDistances(graph, 0, true, dist, heap);
+        int next = farthest(dist);
+        for (int l = 0; l < k; l++) {
+            landmarkNodes[l] = next;
+            shortestDistances(graph, next, true, dist, heap);
+            for (int v = 0; v < n; v++) {
+                fromLandmark[v * k + l] = (float) dist[v];
+                nearest[v] = Math.min(nearest[v], dist[v]);
+            }
+            shortestDistances(graph, next, false, dist, heap);
+            for (int v = 0; v < n; v++) {
+                toLandmark[v * k + l] = (float) dist[v];
+            }
+            next = farthest(nearest);
+        }
+        return new Landmarks(graph, landmarkNodes, fromLandmark, toLandmark);
+    }
+
+    /**
+     * 在拓扑相同且没有弧变短的新图上复用距离表：旧图上的最短距离不大于新图上的，下界仍然成立
+     * @return 不满足条件时返回 null
+     */
+    public Landmarks reuseFor(CsrGraph other) {
+        if (other == graph) {
+            return this;
+        }
+        if (!graph.sameTopology(other)) {
+            return null;
+        }
+        for (int arc = 0; arc < graph.arcCount(); arc++) {
+            if (other.distances[arc] < graph.distances[arc]) {
+                return null;
+            }
+        }
+        return new Landmarks(other, landmarkNodes, fromLandmark, toLandmark);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * 第 l 个地标的节点下标
+     */
+    public int landmark(int l) {
+        return landmarkNodes[l];
+    }
+
+    /**
+     * 选出对 (source, target) 下界最大的 active 个地标，搜索时只用这些地标计算启发值
+     */
+    public int[] selectActive(int source, int target, int active) {
+        int k = Math.min(active, count);
+        int[] selected = new int[k];
+        double[] bounds = new double[k];
+        int size = 0;
+        for (int l = 0; l < count; l++) {
+            double bound = bound(source, target, l);
+            if (!(bound > 0)) {
+                continue;
+            }
+            // 插入排序，保持 bounds 降序，已满时替换最小者
+            int pos;
+            if (size < k) {
+                pos = size++;
+            } else if (bound > bounds[k - 1]) {
+                pos = k - 1;
+            } else {
+                continue;
+            }
+            while (pos > 0 && bounds[pos - 1] < bound) {
+                bounds[pos] = bounds[pos - 1];
+                selected[pos] = selected[pos - 1];
+                pos--;
+            }
+            bounds[pos] = bound;
+            selected[pos] = l;
+        }
+        return Arrays.copyOf(selected, size);
+    }
+
+    /**
+     * 使用给定地标计算 node 到 target 按弧距离的下界
+     */
+    public double lowerBound(int node, int target, int[] active) {
+        double best = 0.0;
+        for (int l : active) {
+            double bound = bound(node, target, l);
+            // 含无穷的差为 NaN 或负无穷，比较不成立，自然被跳过
+            if (bound > best) {
+                best = bound;
+            }
+        }
+        return best;
+    }
+
+    private double bound(int node, int target, int l) {
+        int nodeSlot = node * count + l;
+        int targetSlot = target * count + l;
+        double fromNode = fromLandmark[nodeSlot];
+        double fromTarget = fromLandmark[targetSlot];
+        double toNode = toLandmark[nodeSlot];
+        double toTarget = toLandmark[targetSlot];
+        double forward = fromTarget - fromNode - FLOAT_ERROR * (fromTarget + fromNode);
+        double backward = toNode - toTarget - FLOAT_ERROR * (toNode + toTarget);
+        return Math.max(forward, backward);
+    }
+
+    /**
+     * 按弧距离的单源全图 Dijkstra；forward 为 false 时沿入边搜索，得到各节点到 source 的距离
+     */
+    private static void shortestDistances(CsrGraph graph, int source, boolean forward,
+                                          double[] dist, IndexedMinHeap heap) {
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        int[] offsets = forward ? graph.offsets : graph.reverseOffsets;
+        int[] neighbors = forward ? graph.targets : graph.reverseSources;
+        double[] distances = graph.distances;
+
+        dist[source] = 0.0;
+        heap.insertOrDecrease(source, 0.0);
+        while (!heap.isEmpty()) {
+            double currentDist = heap.minKey();
+            int current = heap.poll();
+            for (int i = offsets[current], end = offsets[current + 1]; i < end; i++) {
+                int arc = forward ? i : graph.reverseArcs[i];
+                int neighbor = neighbors[i];
+                double newDist = currentDist + distances[arc];
+                if (newDist < dist[neighbor]) {
+                    dist[neighbor] = newDist;
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+    }
+
+    private static int farthest(double[] values) {
+        int best = 0;
+        for (int v = 1; v < values.length; v++) {
+            if (values[v] > values[best]) {
+                best = v;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.routeplanner.graph;
+
+/**
+ * 最近邻查询结果，按距离升序，节点以 CSR 下标表示
+ */
+public final class NearestNeighbors {
+
+    private final int[] nodes;
+    private final double[] distances;
+
+    NearestNeighbors(int[] nodes, double[] distances) {
+        this.nodes = nodes;
+        this.distances = distances;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public int node(int i) {
+        return nodes[i];
+    }
+
+    /**
+     * 第 i 个节点到查询点的距离（公里）
+     */
+    public double distance(int i) {
+        return distances[i];
+    }
+}
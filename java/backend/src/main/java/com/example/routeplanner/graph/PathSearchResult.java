@@ -0,0 +1,37 @@
+package com.example.routeplanner.graph;
+
+/**
+ * 路径搜索结果，节点以 CSR 下标表示
+ *
+ * arcs[i] 为 nodes[i] -> nodes[i+1] 实际经过的弧。
+ */
+public final class PathSearchResult {
+
+    public static final PathSearchResult NOT_FOUND = new PathSearchResult(new int[0], new int[0], 0.0);
+
+    private final int[] nodes;
+    private final int[] arcs;
+    private final double totalWeight;
+
+    PathSearchResult(int[] nodes, int[] arcs, double totalWeight) {
+        this.nodes = nodes;
+        this.arcs = arcs;
+        this.totalWeight = totalWeight;
+    }
+
+    public boolean isFound() {
+        return nodes.length > 0;
+    }
+
+    public int[] getNodes() {
+        return nodes;
+    }
+
+    public int[] getArcs() {
+        return arcs;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.routeplanner.graph;
+
+/**
+ * 有界搜索可达的节点，按到达时间升序，节点以 CSR 下标表示
+ */
+public final class ReachableNodes {
+
+    private final int[] nodes;
+    private final double[] arrivalTimes;
+    private final int size;
+
+    ReachableNodes(int[] nodes, double[] arrivalTimes, int size) {
+        this.nodes = nodes;
+        this.arrivalTimes = arrivalTimes;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int node(int i) {
+        return nodes[i];
+    }
+
+    /**
+     * 第 i 个节点的到达时间（出发后的分钟数）
+     */
+    public double arrivalTime(int i) {
+        return arrivalTimes[i];
+    }
+}
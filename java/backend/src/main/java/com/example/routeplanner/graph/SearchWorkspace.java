@@ -0,0 +1,81 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * 单线程复用的搜索状态
+ *
+ * dist/prev/prevArc 通过纪元戳惰性失效：stamp[v] != epoch 的节点视为未访问，
+ * 因此每次查询无需 O(V) 的初始化。
+ */
+final class SearchWorkspace {
+
+    final double[] dist;
+    final int[] prev;
+    // 到达该节点所经过的弧，用于线性还原路径上的边
+    final int[] prevArc;
+    // A* 启发值，节点首次被触及时计算，与 dist 同属本纪元
+    final double[] heuristic;
+    final IndexedMinHeap heap;
+    private final int[] stamp;
+    // 一对多搜索的目标标记，值等于 epoch 的节点为本次查询的目标
+    private final int[] targetStamp;
+    private int epoch;
+
+    SearchWorkspace(int nodeCount) {
+        this.dist = new double[nodeCount];
+        this.prev = new int[nodeCount];
+        this.prevArc = new int[nodeCount];
+        this.heuristic = new double[nodeCount];
+        this.stamp = new int[nodeCount];
+        this.targetStamp = new int[nodeCount];
+        this.heap = new IndexedMinHeap(nodeCount);
+    }
+
+    int capacity() {
+        return dist.length;
+    }
+
+    /**
+     * 开始新一次查询
+     */
+    void reset() {
+        heap.clear();
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(targetStamp, 0);
+            epoch = 1;
+        }
+    }
+
+    boolean visited(int node) {
+        return stamp[node] == epoch;
+    }
+
+    double distance(int node) {
+        return stamp[node] == epoch ? dist[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 将节点标记为本次查询的目标
+     * @return 节点此前未被标记时返回 true
+     */
+    boolean markTarget(int node) {
+        if (targetStamp[node] == epoch) {
+            return false;
+        }
+        targetStamp[node] = epoch;
+        return true;
+    }
+
+    boolean isTarget(int node) {
+        return targetStamp[node] == epoch;
+    }
+
+    void update(int node, double distance, int previous, int arc) {
+        stamp[node] = epoch;
+        dist[node] = distance;
+        prev[node] = previous;
+        prevArc[node] = arc;
+    }
+}
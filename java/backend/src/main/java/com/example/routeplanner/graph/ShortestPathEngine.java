@@ -0,0 +1,514 @@
+package com.example.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * 基于 CSR 图的 Dijkstra / A* / ALT / 双向 Dijkstra / 时间依赖 Dijkstra 搜索引擎
+ *
+ * 每个线程持有正反两份 {@link SearchWorkspace}，查询过程除结果路径外不分配对象。
+ */
+public final class ShortestPathEngine {
+
+    // 抵消浮点误差，保证启发值不超过真实距离
+    private static final double HEURISTIC_SLACK = 1 - 1e-9;
+    // ALT 搜索每次查询使用的地标个数
+    private static final int ACTIVE_LANDMARKS = 4;
+
+    private final CsrGraph graph;
+    private final ThreadLocal<SearchWorkspace> workspaces;
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+    // 弧距离与两端大圆距离之比的下界，使大圆距离乘以该系数后仍是可采纳的启发值
+    private final double geometricRatio;
+    // 节点在单位球面上的坐标 (x, y, z) 交错存放，用于快速计算弦长
+    private final double[] unitVectors;
+
+    public ShortestPathEngine(CsrGraph graph) {
+        this.graph = graph;
+        this.workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+        this.backwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+        this.geometricRatio = computeGeometricRatio(graph);
+        this.unitVectors = computeUnitVectors(graph);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * 按距离搜索最短路径
+     */
+    public PathSearchResult search(int source, int target) {
+        return search(source, target, ArcWeights.distance(graph));
+    }
+
+    /**
+     * 按给定弧权重搜索最短路径
+     * @param source 起点下标
+     * @param target 终点下标
+     * @param weights 本次查询的弧权重视图
+     */
+    public PathSearchResult search(int source, int target, ArcWeights weights) {
+        SearchWorkspace ws = workspaces.get();
+        ws.reset();
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        IndexedMinHeap heap = ws.heap;
+
+        ws.update(source, 0.0, -1, -1);
+        heap.insertOrDecrease(source, 0.0);
+
+        while (!heap.isEmpty()) {
+            double currentDist = heap.minKey();
+            int current = heap.poll();
+
+            if (current == target) {
+                return buildResult(ws, target, currentDist);
+            }
+
+            for (int arc = offsets[current], end = offsets[current + 1]; arc < end; arc++) {
+                int neighbor = targets[arc];
+                double newDist = currentDist + weights.weight(arc);
+                if (newDist < ws.distance(neighbor)) {
+                    ws.update(neighbor, newDist, current, arc);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+
+        return PathSearchResult.NOT_FOUND;
+    }
+
+    /**
+     * 一对多搜索：从起点按给定弧权重扩展最短路径树，全部目标确定后提前结束
+     *
+     * 每个目标的权重与单独调用 {@link #search(int, int, ArcWeights)} 得到的结果相同，
+     * 并沿树上路径累加弧距离。不可达的目标两项均为 {@link Double#POSITIVE_INFINITY}。
+     * @param targets 目标下标，允许重复
+     * @param weightRow 输出：到各目标的路径权重，长度不小于 targets.length
+     * @param distanceRow 输出：到各目标的路径距离，长度不小于 targets.length
+     */
+    public void searchOneToMany(int source, int[] targets, ArcWeights weights,
+                                double[] weightRow, double[] distanceRow) {
+        SearchWorkspace ws = workspaces.get();
+        ws.reset();
+
+        int remaining = 0;
+        for (int target : targets) {
+            if (ws.markTarget(target)) {
+                remaining++;
+            }
+        }
+
+        int[] offsets = graph.offsets;
+        int[] targetNodes = graph.targets;
+        IndexedMinHeap heap = ws.heap;
+
+        ws.update(source, 0.0, -1, -1);
+        heap.insertOrDecrease(source, 0.0);
+
+        while (!heap.isEmpty() && remaining > 0) {
+            double currentDist = heap.minKey();
+            int current = heap.poll();
+            if (ws.isTarget(current)) {
+                remaining--;
+            }
+
+            for (int arc = offsets[current], end = offsets[current + 1]; arc < end; arc++) {
+                int neighbor = targetNodes[arc];
+                double newDist = currentDist + weights.weight(arc);
+                if (newDist < ws.distance(neighbor)) {
+                    ws.update(neighbor, newDist, current, arc);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+
+        // 搜索结束时可达目标均已确定，沿前驱弧累加（覆盖后的）距离
+        double[] distances = weights.distances;
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i];
+            double weight = ws.distance(target);
+            weightRow[i] = weight;
+            if (weight == Double.POSITIVE_INFINITY) {
+                distanceRow[i] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double distance = 0.0;
+            for (int v = target; ws.prev[v] != -1; v = ws.prev[v]) {
+                distance += distances[ws.prevArc[v]];
+            }
+            distanceRow[i] = distance;
+        }
+    }
+
+    /**
+     * A* 搜索，以到终点的大圆距离乘以最小拥堵因子作为启发值
+     *
+     * 大圆距离用球面弦长代替：弦长不超过弧长，且只需一次开方。
+     * 启发值不超过任何路径的真实权重，结果与 {@link #search(int, int, ArcWeights)} 等价；
+     * 节点被更短路径再次触及时会重新入堆，因此不要求启发值严格一致。
+     */
+    public PathSearchResult searchAStar(int source, int target, ArcWeights weights) {
+        double scale = GeoUtils.EARTH_RADIUS_KM * geometricRatio * weights.getMinFactor() * HEURISTIC_SLACK;
+        if (scale <= 0) {
+            return search(source, target, weights);
+        }
+
+        SearchWorkspace ws = workspaces.get();
+        ws.reset();
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        double[] unit = unitVectors;
+        double tx = unit[3 * target];
+        double ty = unit[3 * target + 1];
+        double tz = unit[3 * target + 2];
+        IndexedMinHeap heap = ws.heap;
+
+        double sourceHeuristic = scale * chord(unit, source, tx, ty, tz);
+        ws.update(source, 0.0, -1, -1);
+        ws.heuristic[source] = sourceHeuristic;
+        heap.insertOrDecrease(source, sourceHeuristic);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            double currentDist = ws.dist[current];
+
+            if (current == target) {
+                return buildResult(ws, target, currentDist);
+            }
+
+            for (int arc = offsets[current], end = offsets[current + 1]; arc < end; arc++) {
+                int neighbor = targets[arc];
+                double newDist = currentDist + weights.weight(arc);
+                // 封闭的弧（权重为正无穷）不可通行
+                if (newDist == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double h;
+                if (ws.visited(neighbor)) {
+                    if (newDist >= ws.dist[neighbor]) {
+                        continue;
+                    }
+                    h = ws.heuristic[neighbor];
+                } else {
+                    h = scale * chord(unit, neighbor, tx, ty, tz);
+                    ws.heuristic[neighbor] = h;
+                }
+                ws.update(neighbor, newDist, current, arc);
+                heap.insertOrDecrease(neighbor, newDist + h);
+            }
+        }
+
+        return PathSearchResult.NOT_FOUND;
+    }
+
+    /**
+     * ALT 搜索：以地标三角不等式给出的距离下界乘以最小拥堵因子作为启发值
+     *
+     * 只使用对 (source, target) 下界最大的少数地标，并与 {@link #searchAStar} 的大圆距离下界取较大者；
+     * 启发值可采纳，结果与 {@link #search(int, int, ArcWeights)} 等价。地标不属于本图时退回标准 Dijkstra。
+     */
+    public PathSearchResult searchAlt(int source, int target, ArcWeights weights, Landmarks landmarks) {
+        double scale = weights.getMinFactor() * HEURISTIC_SLACK;
+        if (scale <= 0 || landmarks.getGraph() != graph) {
+            return search(source, target, weights);
+        }
+        int[] active = landmarks.selectActive(source, target, ACTIVE_LANDMARKS);
+        double geometricScale = GeoUtils.EARTH_RADIUS_KM * geometricRatio;
+
+        SearchWorkspace ws = workspaces.get();
+        ws.reset();
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        double[] unit = unitVectors;
+        double tx = unit[3 * target];
+        double ty = unit[3 * target + 1];
+        double tz = unit[3 * target + 2];
+        IndexedMinHeap heap = ws.heap;
+
+        double sourceHeuristic = scale * Math.max(landmarks.lowerBound(source, target, active),
+                geometricScale * chord(unit, source, tx, ty, tz));
+        ws.update(source, 0.0, -1, -1);
+        ws.heuristic[source] = sourceHeuristic;
+        heap.insertOrDecrease(source, sourceHeuristic);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            double currentDist = ws.dist[current];
+
+            if (current == target) {
+                return buildResult(ws, target, currentDist);
+            }
+
+            for (int arc = offsets[current], end = offsets[current + 1]; arc < end; arc++) {
+                int neighbor = targets[arc];
+                double newDist = currentDist + weights.weight(arc);
+                // 封闭的弧（权重为正无穷）不可通行
+                if (newDist == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double h;
+                if (ws.visited(neighbor)) {
+                    if (newDist >= ws.dist[neighbor]) {
+                        continue;
+                    }
+                    h = ws.heuristic[neighbor];
+                } else {
+                    h = scale * Math.max(landmarks.lowerBound(neighbor, target, active),
+                            geometricScale * chord(unit, neighbor, tx, ty, tz));
+                    ws.heuristic[neighbor] = h;
+                }
+                ws.update(neighbor, newDist, current, arc);
+                heap.insertOrDecrease(neighbor, newDist + h);
+            }
+        }
+
+        return PathSearchResult.NOT_FOUND;
+    }
+
+    /**
+     * 时间依赖 Dijkstra：标号为出发后的到达时间（分钟），弧的通行时间按进入该弧的时刻取值
+     *
+     * profile 满足 FIFO，因此最早到达时间具有最优子结构，首次弹出终点即得最优解；
+     * 结果的总权重为到达终点的分钟数。
+     */
+    public PathSearchResult searchTimeDependent(int source, int target, TravelTimeProfile profile) {
+        SearchWorkspace ws = workspaces.get();
+        ws.reset();
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        IndexedMinHeap heap = ws.heap;
+
+        ws.update(source, 0.0, -1, -1);
+        heap.insertOrDecrease(source, 0.0);
+
+        while (!heap.isEmpty()) {
+            double arrival = heap.minKey();
+            int current = heap.poll();
+
+            if (current == target) {
+                return buildResult(ws, target, arrival);
+            }
+
+            for (int arc = offsets[current], end = offsets[current + 1]; arc < end; arc++) {
+                int neighbor = targets[arc];
+                double newArrival = arrival + profile.travelTime(arc, arrival);
+                if (newArrival < ws.distance(neighbor)) {
+                    ws.update(neighbor, newArrival, current, arc);
+                    heap.insertOrDecrease(neighbor, newArrival);
+                }
+            }
+        }
+
+        return PathSearchResult.NOT_FOUND;
+    }
+
+    /**
+     * 有界的一对全时间依赖搜索：确定出发后 budget 分钟内可到达的全部节点
+     *
+     * 与 {@link #searchTimeDependent} 相同的最早到达标号，堆顶超过 budget 时停止，
+     * 每个可达节点只在被确定时记录一次。
+     * @param budget 时间预算（分钟）
+     */
+    public ReachableNodes searchReachable(int source, TravelTimeProfile profile, double budget) {
+        SearchWorkspace ws = workspaces.get();
+        ws.reset();
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        IndexedMinHeap heap = ws.heap;
+        int[] nodes = new int[16];
+        double[] arrivals = new double[16];
+        int size = 0;
+
+        ws.update(source, 0.0, -1, -1);
+        heap.insertOrDecrease(source, 0.0);
+
+        while (!heap.isEmpty() && heap.minKey() <= budget) {
+            double arrival = heap.minKey();
+            int current = heap.poll();
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                arrivals = Arrays.copyOf(arrivals, size * 2);
+            }
+            nodes[size] = current;
+            arrivals[size] = arrival;
+            size++;
+
+            for (int arc = offsets[current], end = offsets[current + 1]; arc < end; arc++) {
+                int neighbor = targets[arc];
+                double newArrival = arrival + profile.travelTime(arc, arrival);
+                if (newArrival <= budget && newArrival < ws.distance(neighbor)) {
+                    ws.update(neighbor, newArrival, current, arc);
+                    heap.insertOrDecrease(neighbor, newArrival);
+                }
+            }
+        }
+
+        return new ReachableNodes(nodes, arrivals, size);
+    }
+
+    /**
+     * 双向 Dijkstra：从起点沿出边、从终点沿入边同时搜索，每次扩展堆顶较小的一侧
+     *
+     * 松弛时若邻居已被另一侧触及，用两侧距离之和更新最短路上界 mu；
+     * 两侧堆顶之和不小于 mu 时 mu 即为最短距离。
+     */
+    public PathSearchResult searchBidirectional(int source, int target, ArcWeights weights) {
+        SearchWorkspace forward = workspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+
+        if (source == target) {
+            forward.update(source, 0.0, -1, -1);
+            return buildResult(forward, target, 0.0);
+        }
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        int[] reverseOffsets = graph.reverseOffsets;
+        int[] reverseArcs = graph.reverseArcs;
+        int[] reverseSources = graph.reverseSources;
+        IndexedMinHeap forwardHeap = forward.heap;
+        IndexedMinHeap backwardHeap = backward.heap;
+
+        forward.update(source, 0.0, -1, -1);
+        forwardHeap.insertOrDecrease(source, 0.0);
+        // 反向搜索中 prev 指向靠近终点的下一个节点，prevArc 为正向弧 v -> prev[v]
+        backward.update(target, 0.0, -1, -1);
+        backwardHeap.insertOrDecrease(target, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            double forwardMin = forwardHeap.minKey();
+            double backwardMin = backwardHeap.minKey();
+            if (forwardMin + backwardMin >= best) {
+                break;
+            }
+
+            if (forwardMin <= backwardMin) {
+                int current = forwardHeap.poll();
+                for (int arc = offsets[current], end = offsets[current + 1]; arc < end; arc++) {
+                    int neighbor = targets[arc];
+                    double newDist = forwardMin + weights.weight(arc);
+                    if (newDist < forward.distance(neighbor)) {
+                        forward.update(neighbor, newDist, current, arc);
+                        forwardHeap.insertOrDecrease(neighbor, newDist);
+                    }
+                    double candidate = newDist + backward.distance(neighbor);
+                    if (candidate < best) {
+                        best = candidate;
+                        meeting = neighbor;
+                    }
+                }
+            } else {
+                int current = backwardHeap.poll();
+                for (int slot = reverseOffsets[current], end = reverseOffsets[current + 1]; slot < end; slot++) {
+                    int arc = reverseArcs[slot];
+                    int neighbor = reverseSources[slot];
+                    double newDist = backwardMin + weights.weight(arc);
+                    if (newDist < backward.distance(neighbor)) {
+                        backward.update(neighbor, newDist, current, arc);
+                        backwardHeap.insertOrDecrease(neighbor, newDist);
+                    }
+                    double candidate = newDist + forward.distance(neighbor);
+                    if (candidate < best) {
+                        best = candidate;
+                        meeting = neighbor;
+                    }
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return PathSearchResult.NOT_FOUND;
+        }
+        return buildResult(forward, backward, meeting, best);
+    }
+
+    private static double chord(double[] unit, int node, double tx, double ty, double tz) {
+        double dx = unit[3 * node] - tx;
+        double dy = unit[3 * node + 1] - ty;
+        double dz = unit[3 * node + 2] - tz;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static double[] computeUnitVectors(CsrGraph graph) {
+        double[] unit = new double[3 * graph.nodeCount()];
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            double lat = Math.toRadians(graph.latitudes[v]);
+            double lon = Math.toRadians(graph.longitudes[v]);
+            unit[3 * v] = Math.cos(lat) * Math.cos(lon);
+            unit[3 * v + 1] = Math.cos(lat) * Math.sin(lon);
+            unit[3 * v + 2] = Math.sin(lat);
+        }
+        return unit;
+    }
+
+    private static double computeGeometricRatio(CsrGraph graph) {
+        double ratio = 1.0;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.target(arc);
+                double straight = GeoUtils.haversineKm(graph.latitudes[u], graph.longitudes[u],
+                        graph.latitudes[v], graph.longitudes[v]);
+                if (straight > 0) {
+                    ratio = Math.min(ratio, graph.distances[arc] / straight);
+                }
+            }
+        }
+        return Math.max(0.0, ratio);
+    }
+
+    /**
+     * 拼接正向搜索 source -> meeting 与反向搜索 meeting -> target 两段路径
+     */
+    private static PathSearchResult buildResult(SearchWorkspace forward, SearchWorkspace backward,
+                                                int meeting, double totalWeight) {
+        int forwardLength = 0;
+        for (int v = meeting; v != -1; v = forward.prev[v]) {
+            forwardLength++;
+        }
+        int length = forwardLength;
+        for (int v = backward.prev[meeting]; v != -1; v = backward.prev[v]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        int[] arcs = new int[length - 1];
+        for (int v = meeting, i = forwardLength - 1; v != -1; v = forward.prev[v], i--) {
+            path[i] = v;
+            if (i > 0) {
+                arcs[i - 1] = forward.prevArc[v];
+            }
+        }
+        for (int v = meeting, i = forwardLength - 1; backward.prev[v] != -1; v = backward.prev[v], i++) {
+            arcs[i] = backward.prevArc[v];
+            path[i + 1] = backward.prev[v];
+        }
+        return new PathSearchResult(path, arcs, totalWeight);
+    }
+
+    private static PathSearchResult buildResult(SearchWorkspace ws, int target, double totalWeight) {
+        int length = 0;
+        for (int v = target; v != -1; v = ws.prev[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int[] arcs = new int[length - 1];
+        for (int v = target, i = length - 1; v != -1; v = ws.prev[v], i--) {
+            path[i] = v;
+            if (i > 0) {
+                arcs[i - 1] = ws.prevArc[v];
+            }
+        }
+        return new PathSearchResult(path, arcs, totalWeight);
+    }
+}
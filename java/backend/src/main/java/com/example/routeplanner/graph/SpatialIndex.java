@@ -0,0 +1,238 @@
+package com.example.routeplanner.graph;
+
+/**
+ * 节点空间索引 - 基于隐式 k-d 树的最近邻查询
+ *
+ * 节点下标按 (纬度, 经度) 递归取中位数排列在一个数组中，区间 [lo, hi) 的中点即该子树的分裂节点。
+ * 剪枝使用球面距离的精确下界（到分裂纬线 / 经线大圆的距离），
+ * 候选点先用纬度差下界预筛，再做 Haversine 精确计算，因此结果与线性扫描一致。
+ */
+public final class SpatialIndex {
+
+    private static final int LEAF_SIZE = 8;
+    private static final byte SPLIT_LATITUDE = 0;
+    private static final byte SPLIT_LONGITUDE = 1;
+
+    private final CsrGraph graph;
+    private final int[] order;
+    private final byte[] splitDims;
+
+    public SpatialIndex(CsrGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.order = new int[n];
+        this.splitDims = new byte[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        build(0, n);
+    }
+
+    /**
+     * 最近的一个节点
+     * @return 节点下标，图为空时返回 -1
+     */
+    public int nearest(double latitude, double longitude) {
+        NearestNeighbors result = nearest(latitude, longitude, 1);
+        return result.size() > 0 ? result.node(0) : -1;
+    }
+
+    /**
+     * 最近的 k 个节点，按距离升序
+     */
+    public NearestNeighbors nearest(double latitude, double longitude, int k) {
+        int count = Math.min(Math.max(k, 0), order.length);
+        Query query = new Query(latitude, longitude, count);
+        if (count > 0) {
+            search(0, order.length, query);
+        }
+        return query.toResult();
+    }
+
+    private void build(int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        // 选择跨度更大的维度（经度跨度按纬度余弦折算）
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (int i = lo; i < hi; i++) {
+            int node = order[i];
+            minLat = Math.min(minLat, graph.latitudes[node]);
+            maxLat = Math.max(maxLat, graph.latitudes[node]);
+            minLon = Math.min(minLon, graph.longitudes[node]);
+            maxLon = Math.max(maxLon, graph.longitudes[node]);
+        }
+        double cosLat = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        byte dim = (maxLat - minLat) >= (maxLon - minLon) * cosLat ? SPLIT_LATITUDE : SPLIT_LONGITUDE;
+
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, dim);
+        splitDims[mid] = dim;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    /**
+     * 快速选择：使 order[k] 为区间内第 k 小，左侧不大于、右侧不小于它
+     */
+    private void select(int left, int right, int k, byte dim) {
+        while (left < right) {
+            double pivot = coordinate(order[(left + right) >>> 1], dim);
+            int i = left, j = right;
+            while (i <= j) {
+                while (coordinate(order[i], dim) < pivot) i++;
+                while (coordinate(order[j], dim) > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coordinate(int node, byte dim) {
+        return dim == SPLIT_LATITUDE ? graph.latitudes[node] : graph.longitudes[node];
+    }
+
+    private void search(int lo, int hi, Query query) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                query.consider(order[i], graph);
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int node = order[mid];
+        query.consider(node, graph);
+
+        byte dim = splitDims[mid];
+        double diff = (dim == SPLIT_LATITUDE ? query.latitude : query.longitude) - coordinate(node, dim);
+        if (diff < 0) {
+            search(lo, mid, query);
+            if (query.planeBound(diff, dim) < query.worst()) {
+                search(mid + 1, hi, query);
+            }
+        } else {
+            search(mid + 1, hi, query);
+            if (query.planeBound(diff, dim) < query.worst()) {
+                search(lo, mid, query);
+            }
+        }
+    }
+
+    /**
+     * 单次查询状态：大小为 k 的最大堆保存当前最近的候选
+     */
+    private static final class Query {
+        final double latitude;
+        final double longitude;
+        final double cosLatitude;
+        final int[] nodes;
+        final double[] distances;
+        int size;
+
+        Query(double latitude, double longitude, int k) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cosLatitude = Math.cos(Math.toRadians(latitude));
+            this.nodes = new int[k];
+            this.distances = new double[k];
+        }
+
+        double worst() {
+            return size < nodes.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        /**
+         * 查询点到分裂面另一侧任意点距离的下界（公里）
+         */
+        double planeBound(double diffDegrees, byte dim) {
+            double delta = Math.toRadians(Math.abs(diffDegrees));
+            if (dim == SPLIT_LATITUDE) {
+                return GeoUtils.EARTH_RADIUS_KM * delta;
+            }
+            if (delta >= Math.PI / 2) {
+                return 0.0;
+            }
+            // 到经线大圆的球面距离
+            return GeoUtils.EARTH_RADIUS_KM * Math.asin(Math.min(1.0, cosLatitude * Math.sin(delta)));
+        }
+
+        void consider(int node, CsrGraph graph) {
+            double nodeLatitude = graph.latitudes[node];
+            double worst = worst();
+            // 纬度差下界预筛
+            if (GeoUtils.EARTH_RADIUS_KM * Math.toRadians(Math.abs(nodeLatitude - latitude)) >= worst) {
+                return;
+            }
+            double distance = GeoUtils.haversineKm(latitude, longitude, nodeLatitude, graph.longitudes[node]);
+            if (distance >= worst) {
+                return;
+            }
+            if (size < nodes.length) {
+                siftUp(size++, node, distance);
+            } else {
+                siftDown(node, distance);
+            }
+        }
+
+        private void siftUp(int pos, int node, double distance) {
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (distances[parent] >= distance) {
+                    break;
+                }
+                nodes[pos] = nodes[parent];
+                distances[pos] = distances[parent];
+                pos = parent;
+            }
+            nodes[pos] = node;
+            distances[pos] = distance;
+        }
+
+        private void siftDown(int node, double distance) {
+            int pos = 0;
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distance >= distances[child]) {
+                    break;
+                }
+                nodes[pos] = nodes[child];
+                distances[pos] = distances[child];
+                pos = child;
+            }
+            nodes[pos] = node;
+            distances[pos] = distance;
+        }
+
+        NearestNeighbors toResult() {
+            // 依次弹出堆顶得到降序，倒序填充为升序
+            int[] sortedNodes = new int[size];
+            double[] sortedDistances = new double[size];
+            for (int i = size - 1; i >= 0; i--) {
+                sortedNodes[i] = nodes[0];
+                sortedDistances[i] = distances[0];
+                size--;
+                if (size > 0) {
+                    siftDown(nodes[size], distances[size]);
+                }
+            }
+            return new NearestNeighbors(sortedNodes, sortedDistances);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.routeplanner.graph;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * 单次查询使用的时间依赖弧通行时间
+ *
+ * 每个时间段的弧权重在搜索首次进入该时间段时才获取；通行时间在松弛到某条弧时才按弧计算，
+ * 不为整张图物化数组，有界的小范围搜索只为访问到的弧付出代价。
+ * 时间段起点为断点，段内线性插值，因此每条弧的通行时间是出发时刻的分段线性函数。
+ * 时域之外沿用最后一个时间段。计算时从出发时间段起逐段修正断点，保证相邻断点满足 FIFO（晚出发不会早到达），
+ * 时间依赖 Dijkstra 由此保持正确。对象不是线程安全的，只在一次查询内使用。
+ */
+public final class TravelTimeProfile {
+
+    private final int departureSlot;
+    private final int lastSlot;
+    private final double slotMinutes;
+    private final IntFunction<ArcWeights> slotWeights;
+    private final DoubleBinaryOperator travelTime;
+
+    // 下标为 slot - departureSlot，按时间顺序依次获取
+    private final ArcWeights[] weights;
+    private int materialized;
+
+    /**
+     * @param departureSlot 出发时所在的时间段
+     * @param horizon 时间段个数，时间段取值为 0..horizon-1
+     * @param slotMinutes 每个时间段的分钟数
+     * @param slotWeights 按时间段获取弧权重
+     * @param travelTime (弧距离, 弧权重) -> 通行分钟数
+     */
+    public TravelTimeProfile(int departureSlot, int horizon, double slotMinutes,
+                             IntFunction<ArcWeights> slotWeights, DoubleBinaryOperator travelTime) {
+        if (slotMinutes <= 0) {
+            throw new IllegalArgumentException("时间段长度必须为正数");
+        }
+        this.lastSlot = Math.max(departureSlot, horizon - 1);
+        this.departureSlot = departureSlot;
+        this.slotMinutes = slotMinutes;
+        this.slotWeights = slotWeights;
+        this.travelTime = travelTime;
+        int slots = lastSlot - departureSlot + 1;
+        this.weights = new ArcWeights[slots];
+    }
+
+    /**
+     * 出发后 minutes 分钟进入弧 arc 时的通行分钟数
+     */
+    public double travelTime(int arc, double minutes) {
+        double position = minutes / slotMinutes;
+        int slot = (int) position;
+        int last = weights.length - 1;
+        // 从出发时间段逐段修正到所需断点：通行时间在一个时间段内的下降不超过段长，否则插值后会出现晚出发早到达
+        double current = rawTravelTime(arc, 0);
+        for (int i = 1, end = Math.min(slot, last); i <= end; i++) {
+            current = Math.max(rawTravelTime(arc, i), current - slotMinutes);
+        }
+        if (slot >= last) {
+            return current;
+        }
+        double next = Math.max(rawTravelTime(arc, slot + 1), current - slotMinutes);
+        double fraction = position - slot;
+        return current + fraction * (next - current);
+    }
+
+    /**
+     * 出发后 minutes 分钟进入弧 arc 时的拥堵权重，插值方式与通行时间相同
+     */
+    public double weight(int arc, double minutes) {
+        double position = minutes / slotMinutes;
+        int slot = (int) position;
+        if (slot >= weights.length - 1) {
+            return weights(weights.length - 1).weight(arc);
+        }
+        double current = weights(slot).weight(arc);
+        double next = weights(slot + 1).weight(arc);
+        return current + (position - slot) * (next - current);
+    }
+
+    /**
+     * 沿给定弧序列推进时钟，返回每条弧在进入时刻的拥堵权重
+     */
+    public double[] weightsAlong(int[] arcs) {
+        double[] result = new double[arcs.length];
+        double minutes = 0.0;
+        for (int i = 0; i < arcs.length; i++) {
+            result[i] = weight(arcs[i], minutes);
+            minutes += travelTime(arcs[i], minutes);
+        }
+        return result;
+    }
+
+    /**
+     * 已获取权重的时间段个数
+     */
+    public int materializedSlots() {
+        return materialized;
+    }
+
+    private ArcWeights weights(int index) {
+        materialize(index);
+        return weights[index];
+    }
+
+    /**
+     * 弧 arc 在第 index 个时间段断点处未经 FIFO 修正的通行分钟数
+     */
+    private double rawTravelTime(int arc, int index) {
+        ArcWeights slot = weights(index);
+        return travelTime.applyAsDouble(slot.distances[arc], slot.weight(arc));
+    }
+
+    private void materialize(int index) {
+        while (materialized <= index) {
+            weights[materialized] = slotWeights.apply(departureSlot + materialized);
+            materialized++;
+        }
+    }
+}
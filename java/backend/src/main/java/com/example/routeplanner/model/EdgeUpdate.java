@@ -0,0 +1,77 @@
+package com.example.routeplanner.model;
+
+/**
+ * 路段变更实体类
+ */
+public class EdgeUpdate {
+    private EdgeUpdateAction action;
+    private int from;
+    private int to;
+
+    // 路段距离（公里）：OVERRIDE 必填；ADD 为空时取两端节点的大圆距离
+    private Double distance;
+
+    // 是否同时作用于反方向路段
+    private boolean bidirectional;
+
+    public EdgeUpdate() {}
+
+    public EdgeUpdate(EdgeUpdateAction action, int from, int to, Double distance) {
+        this.action = action;
+        this.from = from;
+        this.to = to;
+        this.distance = distance;
+    }
+
+    // Getters and Setters
+    public EdgeUpdateAction getAction() {
+        return action;
+    }
+
+    public void setAction(EdgeUpdateAction action) {
+        this.action = action;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public void setFrom(int from) {
+        this.from = from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public void setTo(int to) {
+        this.to = to;
+    }
+
+    public Double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(Double distance) {
+        this.distance = distance;
+    }
+
+    public boolean isBidirectional() {
+        return bidirectional;
+    }
+
+    public void setBidirectional(boolean bidirectional) {
+        this.bidirectional = bidirectional;
+    }
+
+    @Override
+    public String toString() {
+        return "EdgeUpdate{" +
+                "action=" + action +
+                ", from=" + from +
+                ", to=" + to +
+                ", distance=" + distance +
+                ", bidirectional=" + bidirectional +
+                '}';
+    }
+}
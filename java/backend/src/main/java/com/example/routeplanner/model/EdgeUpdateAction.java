@@ -0,0 +1,17 @@
+package com.example.routeplanner.model;
+
+/**
+ * 路段变更操作
+ */
+public enum EdgeUpdateAction {
+    // 新增路段；路段已存在时等同于 OVERRIDE。新路段改变路网拓扑，需合并进基础路网后生效
+    ADD,
+    // 删除路段：立即封闭，合并时从基础路网中移除
+    REMOVE,
+    // 临时封闭路段：立即封闭，合并时保留为距离正无穷的弧（不改变拓扑），RESTORE 后立即恢复
+    BLOCK,
+    // 以给定距离（公里）覆盖路段距离，拥堵因子照常作用；合并时写入基础路网
+    OVERRIDE,
+    // 撤销该路段上的变更，恢复为数据文件中的状态
+    RESTORE
+}
@@ -0,0 +1,90 @@
+package com.example.routeplanner.model;
+
+import java.util.List;
+
+/**
+ * 路段变更响应实体类
+ *
+ * 版本与变更列表为处理完成后生效的路网；请求不合法或处理失败时为原路网。
+ */
+public class EdgeUpdateResponse {
+    private boolean success;
+    private String message;
+
+    // 生效的路网版本
+    private long version;
+    // 相对数据文件的全部路段变更（按方向展开）
+    private List<EdgeUpdate> changes;
+    // 覆盖层中被覆盖（含封闭）的弧数
+    private int overriddenArcs;
+    // 本次处理是否将变更合并进了基础路网
+    private boolean compacted;
+
+    public EdgeUpdateResponse() {}
+
+    public EdgeUpdateResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public List<EdgeUpdate> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<EdgeUpdate> changes) {
+        this.changes = changes;
+    }
+
+    public int getOverriddenArcs() {
+        return overriddenArcs;
+    }
+
+    public void setOverriddenArcs(int overriddenArcs) {
+        this.overriddenArcs = overriddenArcs;
+    }
+
+    public boolean isCompacted() {
+        return compacted;
+    }
+
+    public void setCompacted(boolean compacted) {
+        this.compacted = compacted;
+    }
+
+    @Override
+    public String toString() {
+        return "EdgeUpdateResponse{" +
+                "success=" + success +
+                ", message='" + message + '\'' +
+                ", version=" + version +
+                ", changes=" + (changes != null ? changes.size() : 0) +
+                ", overriddenArcs=" + overriddenArcs +
+                ", compacted=" + compacted +
+                '}';
+    }
+}
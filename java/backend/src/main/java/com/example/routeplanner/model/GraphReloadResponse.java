@@ -0,0 +1,86 @@
+package com.example.routeplanner.model;
+
+/**
+ * 路网重新加载响应实体类
+ *
+ * 版本与节点数、边数为处理完成后生效的路网；加载失败或路网未变化时为原路网。
+ */
+public class GraphReloadResponse {
+    private boolean success;
+    private String message;
+
+    // 生效的路网版本
+    private long version;
+    private int nodeCount;
+    private int edgeCount;
+    // 重新加载耗时（毫秒）
+    private long durationMs;
+
+    public GraphReloadResponse() {}
+
+    public GraphReloadResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public void setNodeCount(int nodeCount) {
+        this.nodeCount = nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public void setEdgeCount(int edgeCount) {
+        this.edgeCount = edgeCount;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphReloadResponse{" +
+                "success=" + success +
+                ", message='" + message + '\'' +
+                ", version=" + version +
+                ", nodeCount=" + nodeCount +
+                ", edgeCount=" + edgeCount +
+                ", durationMs=" + durationMs +
+                '}';
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.routeplanner.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 等时圈（可达范围）响应实体类
+ */
+public class IsochroneResponse {
+    private boolean success;
+    private String message;
+
+    private int sourceNode;
+    private int timePoint;
+    // 时间预算（分钟）
+    private double minutes;
+
+    // 可达节点，按到达时间升序
+    private List<ReachableNode> reachableNodes;
+
+    // 可达节点的凸包顶点 [纬度, 经度]，逆时针排列；未请求时不输出
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<double[]> hull;
+
+    public IsochroneResponse() {}
+
+    public IsochroneResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public int getSourceNode() {
+        return sourceNode;
+    }
+
+    public void setSourceNode(int sourceNode) {
+        this.sourceNode = sourceNode;
+    }
+
+    public int getTimePoint() {
+        return timePoint;
+    }
+
+    public void setTimePoint(int timePoint) {
+        this.timePoint = timePoint;
+    }
+
+    public double getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(double minutes) {
+        this.minutes = minutes;
+    }
+
+    public List<ReachableNode> getReachableNodes() {
+        return reachableNodes;
+    }
+
+    public void setReachableNodes(List<ReachableNode> reachableNodes) {
+        this.reachableNodes = reachableNodes;
+    }
+
+    public List<double[]> getHull() {
+        return hull;
+    }
+
+    public void setHull(List<double[]> hull) {
+        this.hull = hull;
+    }
+
+    @Override
+    public String toString() {
+        return "IsochroneResponse{" +
+                "success=" + success +
+                ", message='" + message + '\'' +
+                ", sourceNode=" + sourceNode +
+                ", timePoint=" + timePoint +
+                ", minutes=" + minutes +
+                ", reachableNodes=" + (reachableNodes != null ? reachableNodes.size() : 0) +
+                ", hull=" + (hull != null ? hull.size() : 0) +
+                '}';
+    }
+
+    /**
+     * 可达节点
+     */
+    public static class ReachableNode {
+        private int nodeId;
+        private double latitude;
+        private double longitude;
+        // 到达时间（出发后的分钟数）
+        private double arrivalTime;
+
+        public ReachableNode() {}
+
+        public ReachableNode(int nodeId, double latitude, double longitude, double arrivalTime) {
+            this.nodeId = nodeId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.arrivalTime = arrivalTime;
+        }
+
+        public int getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(int nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public void setLatitude(double latitude) {
+            this.latitude = latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public void setLongitude(double longitude) {
+            this.longitude = longitude;
+        }
+
+        public double getArrivalTime() {
+            return arrivalTime;
+        }
+
+        public void setArrivalTime(double arrivalTime) {
+            this.arrivalTime = arrivalTime;
+        }
+    }
+}
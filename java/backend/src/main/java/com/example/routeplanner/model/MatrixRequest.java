@@ -0,0 +1,67 @@
+package com.example.routeplanner.model;
+
+import java.util.List;
+
+/**
+ * 行程代价矩阵请求实体类
+ */
+public class MatrixRequest {
+    // 起点节点ID列表
+    private List<Integer> sources;
+    // 终点节点ID列表，为空时与起点相同
+    private List<Integer> targets;
+
+    private int timePoint;
+    private double congestionAlpha = 0.05;
+
+    public MatrixRequest() {}
+
+    public MatrixRequest(List<Integer> sources, List<Integer> targets, int timePoint) {
+        this.sources = sources;
+        this.targets = targets;
+        this.timePoint = timePoint;
+    }
+
+    // Getters and Setters
+    public List<Integer> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<Integer> sources) {
+        this.sources = sources;
+    }
+
+    public List<Integer> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(List<Integer> targets) {
+        this.targets = targets;
+    }
+
+    public int getTimePoint() {
+        return timePoint;
+    }
+
+    public void setTimePoint(int timePoint) {
+        this.timePoint = timePoint;
+    }
+
+    public double getCongestionAlpha() {
+        return congestionAlpha;
+    }
+
+    public void setCongestionAlpha(double congestionAlpha) {
+        this.congestionAlpha = congestionAlpha;
+    }
+
+    @Override
+    public String toString() {
+        return "MatrixRequest{" +
+                "sources=" + (sources != null ? sources.size() : 0) +
+                ", targets=" + (targets != null ? targets.size() : 0) +
+                ", timePoint=" + timePoint +
+                ", congestionAlpha=" + congestionAlpha +
+                '}';
+    }
+}
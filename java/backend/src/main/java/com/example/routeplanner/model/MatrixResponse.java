@@ -0,0 +1,98 @@
+package com.example.routeplanner.model;
+
+import java.util.List;
+
+/**
+ * 行程代价矩阵响应实体类
+ *
+ * 第 i 行第 j 列为 sources[i] 到 targets[j] 考虑拥堵的最优路径上的代价，
+ * 不可达时为 -1。
+ */
+public class MatrixResponse {
+    private boolean success;
+    private String message;
+
+    private List<Integer> sources;
+    private List<Integer> targets;
+
+    // 路径距离（km）
+    private double[][] distances;
+    // 路径拥堵指数
+    private double[][] congestions;
+    // 预计行程时间（分钟）
+    private double[][] travelTimes;
+
+    public MatrixResponse() {}
+
+    public MatrixResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<Integer> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<Integer> sources) {
+        this.sources = sources;
+    }
+
+    public List<Integer> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(List<Integer> targets) {
+        this.targets = targets;
+    }
+
+    public double[][] getDistances() {
+        return distances;
+    }
+
+    public void setDistances(double[][] distances) {
+        this.distances = distances;
+    }
+
+    public double[][] getCongestions() {
+        return congestions;
+    }
+
+    public void setCongestions(double[][] congestions) {
+        this.congestions = congestions;
+    }
+
+    public double[][] getTravelTimes() {
+        return travelTimes;
+    }
+
+    public void setTravelTimes(double[][] travelTimes) {
+        this.travelTimes = travelTimes;
+    }
+
+    @Override
+    public String toString() {
+        return "MatrixResponse{" +
+                "success=" + success +
+                ", message='" + message + '\'' +
+                ", sources=" + (sources != null ? sources.size() : 0) +
+                ", targets=" + (targets != null ? targets.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.routeplanner.model;
+
+/**
+ * 点到点路径搜索算法
+ *
+ * 请求显式指定的算法总会被执行；只有未指定算法的请求才会在（可定制）收缩层次就绪时改用层次查询。
+ */
+public enum RouteAlgorithm {
+    // 标准 Dijkstra
+    DIJKSTRA,
+    // 以大圆距离为启发值的 A*
+    ASTAR,
+    // 以地标距离下界（三角不等式）与大圆距离中较大者为启发值的 A*（ALT），地标在后台预计算
+    ALT,
+    // 双向 Dijkstra，适合长距离查询
+    BIDIRECTIONAL,
+    // 时间依赖 Dijkstra：拥堵按预计到达各弧时所在时间段的流量计算，最小化行程时间；仅作用于考虑拥堵的路径
+    TIME_DEPENDENT
+}
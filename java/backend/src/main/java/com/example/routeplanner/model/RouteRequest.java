@@ -17,6 +17,12 @@ public class RouteRequest {
     private int timePoint;
     private double congestionAlpha;
 
+    // 搜索算法，为空时使用服务端默认配置（层次就绪时改用层次查询）；指定后总按该算法搜索
+    private RouteAlgorithm algorithm;
+
+    // 备选路径条数，为空时使用服务端默认配置
+    private Integer alternatives;
+
     public RouteRequest() {}
 
     // 原有构造函数（节点ID方式）
@@ -118,6 +124,22 @@ public class RouteRequest {
         this.congestionAlpha = congestionAlpha;
     }
 
+    public RouteAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(RouteAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public Integer getAlternatives() {
+        return alternatives;
+    }
+
+    public void setAlternatives(Integer alternatives) {
+        this.alternatives = alternatives;
+    }
+
     @Override
     public String toString() {
         if (useCoordinates()) {
@@ -126,6 +148,8 @@ public class RouteRequest {
                     ", endCoord=(" + endLatitude + "," + endLongitude + ")" +
                     ", timePoint=" + timePoint +
                     ", congestionAlpha=" + congestionAlpha +
+                    ", algorithm=" + algorithm +
+                    ", alternatives=" + alternatives +
                     '}';
         } else {
             return "RouteRequest{" +
@@ -133,6 +157,8 @@ public class RouteRequest {
                     ", endNode=" + endNode +
                     ", timePoint=" + timePoint +
                     ", congestionAlpha=" + congestionAlpha +
+                    ", algorithm=" + algorithm +
+                    ", alternatives=" + alternatives +
                     '}';
         }
     }
@@ -1,5 +1,7 @@
 package com.example.routeplanner.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
@@ -15,6 +17,10 @@ public class RouteResponse {
     // 最短距离路径
     private PathResult shortestPath;
 
+    // 备选路径（考虑拥堵，按代价升序），未请求时为空且不输出
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<AlternativePath> alternatives;
+
     public RouteResponse() {}
 
     public RouteResponse(boolean success, String message) {
@@ -55,6 +61,14 @@ public class RouteResponse {
         this.shortestPath = shortestPath;
     }
 
+    public List<AlternativePath> getAlternatives() {
+        return alternatives;
+    }
+
+    public void setAlternatives(List<AlternativePath> alternatives) {
+        this.alternatives = alternatives;
+    }
+
     // 为了向后兼容，保留原有的方法
     public List<Integer> getPath() {
         return optimalPath != null ? optimalPath.getPath() : null;
@@ -107,6 +121,7 @@ public class RouteResponse {
                 ", message='" + message + '\'' +
                 ", optimalPath=" + optimalPath +
                 ", shortestPath=" + shortestPath +
+                ", alternatives=" + (alternatives != null ? alternatives.size() : 0) +
                 '}';
     }
 
@@ -181,4 +196,56 @@ public class RouteResponse {
                     '}';
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 备选路径，附带与最优路径的比较指标
+     */
+    public static class AlternativePath extends PathResult {
+        // 排名（从 1 开始，按代价升序）
+        private int rank;
+        // 与最优路径及先于它被接受的备选路径的最大重叠比例（按拥堵权重计，0~1）
+        private double overlap;
+        // 拥堵代价与最优路径之比
+        private double stretch;
+
+        public AlternativePath() {}
+
+        public AlternativePath(String pathType) {
+            super(pathType);
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public void setRank(int rank) {
+            this.rank = rank;
+        }
+
+        public double getOverlap() {
+            return overlap;
+        }
+
+        public void setOverlap(double overlap) {
+            this.overlap = overlap;
+        }
+
+        public double getStretch() {
+            return stretch;
+        }
+
+        public void setStretch(double stretch) {
+            this.stretch = stretch;
+        }
+
+        @Override
+        public String toString() {
+            return "AlternativePath{" +
+                    "rank=" + rank +
+                    ", overlap=" + overlap +
+                    ", stretch=" + stretch +
+                    ", " + super.toString() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.routeplanner.service;
+
+import com.example.routeplanner.graph.ArcFlows;
+import com.example.routeplanner.graph.CsrGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 拥堵流量表存储
+ *
+ * 为预测时域内的每个时间点物化一份按弧下标存放的平均流量数组 avgFlow，
+ * 启动时与模型版本变化时在后台预热；查询时只需与 alpha 组合即可得到拥堵权重，
+ * 不再在请求路径上调用模型服务。
+ * 时域外的时间点在首次查询时计算一次并缓存（并发的首次查询只计算一次），
+ * 同一时间点此后返回同一份流量表；模型版本变化时与时域内的时间点一起在后台重新预热。
+ * 流量表只依赖拓扑：新图与当前图拓扑相同时直接共享，否则为新图预热期间当前图继续使用原有的流量表，
+ * 新图发布后由 {@link #activate} 切换。
+ */
+@Service
+public class CongestionWeightStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CongestionWeightStore.class);
+
+    @Autowired
+    private VolumePredictionCache volumePredictionCache;
+
+    @Value("${route.planner.forecast-horizon:24}")
+    private int forecastHorizon;
+
+    @Value("${route.planner.out-of-horizon-cache-size:16}")
+    private int outOfHorizonCacheSize;
+
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "congestion-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 已发布的图的流量表
+    private volatile FlowTables tables;
+    // 为待发布的图准备的流量表
+    private volatile FlowTables pending;
+
+    /**
+     * 为新图准备流量表：拓扑不变时立即共享当前的表，否则新建并在后台预热全部时间点，期间当前的表继续服务
+     * @return 准备结束（预热完成或被更新的表取代）时完成
+     */
+    public CompletableFuture<Void> prepare(CsrGraph graph) {
+        FlowTables current = tables != null ? tables : pending;
+        if (current != null && current.graph.sameTopology(graph)) {
+            pending = new FlowTables(graph, current);
+            logger.info("新图拓扑未变，共享拥堵流量表");
+            return CompletableFuture.completedFuture(null);
+        }
+        FlowTables newTables = new FlowTables(graph, forecastHorizon, outOfHorizonCacheSize);
+        pending = newTables;
+        // 同时预热此前被查询过的时域外时间点
+        List<Integer> extraPoints = current != null ? current.extraPoints() : new ArrayList<>();
+        return CompletableFuture.runAsync(() -> warmUp(newTables, extraPoints), warmUpExecutor);
+    }
+
+    /**
+     * graph 已发布：为其准备的流量表生效，不再保留其他图的表
+     */
+    public void activate(CsrGraph graph) {
+        FlowTables ready = pending;
+        if (ready != null && ready.graph == graph) {
+            tables = ready;
+            pending = null;
+        } else if (tables != null && tables.graph != graph) {
+            tables = null;
+        }
+    }
+
+    /**
+     * 模型版本变化时立即换用新表并在后台重新预热，未就绪的时间点在请求路径上计算并回填
+     */
+    @EventListener
+    public void onModelVersionChanged(ModelVersionChangedEvent event) {
+        FlowTables current = tables;
+        FlowTables next = pending;
+        if (current != null) {
+            logger.info("模型版本变化，重新预热拥堵流量表: {}", event);
+            tables = refresh(current);
+        }
+        if (next != null) {
+            pending = current != null && next.slots == current.slots ? new FlowTables(next.graph, tables) : refresh(next);
+        }
+    }
+
+    /**
+     * 获取指定时间点的弧平均流量
+     *
+     * 命中预热表时直接返回；否则在请求路径上计算，时域内的结果回填到表中，时域外的结果放入缓存。
+     * @return 按弧下标存放的平均流量
+     */
+    public ArcFlows getArcFlows(CsrGraph graph, int timePoint) {
+        FlowTables current = tables;
+        if (current == null || current.graph != graph) {
+            current = pending;
+        }
+        if (current != null && current.graph == graph && !current.covers(timePoint) && current.extraCapacity > 0) {
+            return getOutOfHorizon(current, timePoint);
+        }
+        boolean covered = current != null && current.graph == graph && current.covers(timePoint);
+        if (covered) {
+            ArcFlows flows = current.slots.get(timePoint);
+            if (flows != null) {
+                return flows;
+            }
+        }
+
+        logger.debug("时间点 {} 的拥堵流量表未就绪，在请求路径上计算", timePoint);
+        ArcFlows flows = computeArcFlows(graph, timePoint);
+        if (flows == null) {
+            // 模型服务不可用，使用默认流量且不回填；同一张图复用同一份默认表，便于下游按引用缓存
+            return current != null && current.graph == graph ? current.defaults : defaultFlows(graph);
+        }
+        if (covered) {
+            current.slots.compareAndSet(timePoint, null, flows);
+        }
+        return flows;
+    }
+
+    /**
+     * 预热表是否已全部就绪
+     */
+    public boolean isReady() {
+        FlowTables current = tables;
+        return current != null && current.readyCount() == current.slots.length();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        warmUpExecutor.shutdownNow();
+    }
+
+    /**
+     * 时域外时间点：每张表缓存最近使用的若干个，并发的首次查询共享同一次计算
+     */
+    private ArcFlows getOutOfHorizon(FlowTables current, int timePoint) {
+        CompletableFuture<ArcFlows> future;
+        boolean owner = false;
+        synchronized (current.extra) {
+            future = current.extra.get(timePoint);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                current.extra.put(timePoint, future);
+                owner = true;
+            }
+        }
+        if (owner) {
+            logger.debug("时域外时间点 {} 的拥堵流量表未就绪，在请求路径上计算", timePoint);
+            fillOutOfHorizon(current, timePoint, future);
+        }
+        return future.join();
+    }
+
+    private void fillOutOfHorizon(FlowTables target, int timePoint, CompletableFuture<ArcFlows> future) {
+        ArcFlows flows = null;
+        try {
+            flows = computeArcFlows(target.graph, timePoint);
+        } finally {
+            if (flows == null) {
+                // 模型服务不可用：本次返回默认流量，移除条目以便之后重试
+                synchronized (target.extra) {
+                    target.extra.remove(timePoint, future);
+                }
+                future.complete(target.defaults);
+            } else {
+                future.complete(flows);
+            }
+        }
+    }
+
+    private FlowTables refresh(FlowTables old) {
+        FlowTables fresh = new FlowTables(old.graph, forecastHorizon, outOfHorizonCacheSize);
+        List<Integer> extraPoints = old.extraPoints();
+        warmUpExecutor.submit(() -> warmUp(fresh, extraPoints));
+        return fresh;
+    }
+
+    /**
+     * target 的表已不被当前或待发布的图使用
+     */
+    private boolean superseded(FlowTables target) {
+        FlowTables current = tables;
+        FlowTables next = pending;
+        return (current == null || current.slots != target.slots) && (next == null || next.slots != target.slots);
+    }
+
+    private void warmUp(FlowTables target, List<Integer> extraPoints) {
+        long start = System.currentTimeMillis();
+        for (int timePoint = 0; timePoint < target.slots.length(); timePoint++) {
+            if (superseded(target)) {
+                return; // 已被更新的表取代
+            }
+            ArcFlows flows = computeArcFlows(target.graph, timePoint);
+            if (flows != null) {
+                target.slots.set(timePoint, flows);
+            }
+        }
+        for (int timePoint : extraPoints) {
+            if (superseded(target)) {
+                return;
+            }
+            CompletableFuture<ArcFlows> future = new CompletableFuture<>();
+            synchronized (target.extra) {
+                if (target.extra.putIfAbsent(timePoint, future) != null) {
+                    continue; // 已被查询触发计算
+                }
+            }
+            fillOutOfHorizon(target, timePoint, future);
+        }
+        logger.info("拥堵流量表预热完成: {}/{} 个时间点（另有 {} 个时域外时间点）, 耗时 {}ms",
+                target.readyCount(), target.slots.length(), extraPoints.size(), System.currentTimeMillis() - start);
+    }
+
+    private static ArcFlows defaultFlows(CsrGraph graph) {
+        double[] defaults = new double[graph.arcCount()];
+        Arrays.fill(defaults, 1.0);
+        return ArcFlows.of(defaults);
+    }
+
+    /**
+     * 计算各弧两端节点的平均流量
+     * @return 模型服务不可用时返回 null
+     */
+    private ArcFlows computeArcFlows(CsrGraph graph, int timePoint) {
+        // 只预测有出边或入边的节点，一次批量请求完成；单向路段的终点可能只有入边
+        int[] indices = new int[graph.nodeCount()];
+        int count = 0;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            if (graph.firstArc(u) != graph.endArc(u) || graph.inDegree(u) != 0) {
+                indices[count++] = u;
+            }
+        }
+        int[] sensorIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            sensorIds[i] = graph.sensorId(indices[i]);
+        }
+        double[] volumes = volumePredictionCache.tryGetVolumes(sensorIds, timePoint);
+        if (volumes == null) {
+            return null;
+        }
+
+        double[] nodeVolumes = new double[graph.nodeCount()];
+        for (int i = 0; i < count; i++) {
+            nodeVolumes[indices[i]] = volumes[i];
+        }
+
+        double[] arcFlows = new double[graph.arcCount()];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                arcFlows[arc] = (nodeVolumes[u] + nodeVolumes[graph.target(arc)]) / 2.0;
+            }
+        }
+        return ArcFlows.of(arcFlows);
+    }
+
+    /**
+     * 某张图在预测时域内的全部流量表
+     */
+    private static class FlowTables {
+        final CsrGraph graph;
+        final AtomicReferenceArray<ArcFlows> slots;
+        // 模型服务不可用时使用的默认流量
+        final ArcFlows defaults;
+        // 时域外时间点的流量表，按访问顺序淘汰；读写时同步于自身
+        final Map<Integer, CompletableFuture<ArcFlows>> extra;
+        final int extraCapacity;
+
+        FlowTables(CsrGraph graph, int horizon, int extraCapacity) {
+            this.graph = graph;
+            this.slots = new AtomicReferenceArray<>(horizon);
+            this.defaults = defaultFlows(graph);
+            this.extraCapacity = extraCapacity;
+            this.extra = new LinkedHashMap<Integer, CompletableFuture<ArcFlows>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<ArcFlows>> eldest) {
+                    return size() > extraCapacity;
+                }
+            };
+        }
+
+        /**
+         * 拓扑相同的另一张图共享同一组表
+         */
+        FlowTables(CsrGraph graph, FlowTables shared) {
+            this.graph = graph;
+            this.slots = shared.slots;
+            this.defaults = shared.defaults;
+            this.extra = shared.extra;
+            this.extraCapacity = shared.extraCapacity;
+        }
+
+        List<Integer> extraPoints() {
+            synchronized (extra) {
+                return new ArrayList<>(extra.keySet());
+            }
+        }
+
+        boolean covers(int timePoint) {
+            return timePoint >= 0 && timePoint < slots.length();
+        }
+
+        int readyCount() {
+            int count = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                if (slots.get(i) != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
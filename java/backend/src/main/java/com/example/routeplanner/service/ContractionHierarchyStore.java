@@ -0,0 +1,155 @@
+package com.example.routeplanner.service;
+
+import com.example.routeplanner.graph.ContractionHierarchy;
+import com.example.routeplanner.graph.CsrGraph;
+import com.example.routeplanner.graph.HierarchySearchEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 收缩层次存储
+ *
+ * 基础路网的弧距离在发布后不再变化，因此按距离的最短路径可使用收缩层次加速，每张基础路网预处理一次。
+ * 层次数据优先从持久化文件加载（校验值与当前图一致时），否则在后台预处理并写回文件；
+ * 就绪前 {@link #getEngine} 返回 null，调用方退回普通搜索。
+ * 为新图准备期间已发布的图继续使用原有的查询引擎，新图发布后由 {@link #activate} 切换。
+ */
+@Service
+public class ContractionHierarchyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractionHierarchyStore.class);
+
+    @Value("${route.planner.contraction-hierarchy.enabled:true}")
+    private boolean enabled;
+
+    @Value("${route.planner.contraction-hierarchy.file:}")
+    private String hierarchyFile;
+
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "contraction-hierarchy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 最近一次准备的图
+    private volatile CsrGraph targetGraph;
+    // 已发布的图的查询引擎
+    private volatile HierarchySearchEngine engine;
+    // 为待发布的图准备好的查询引擎
+    private volatile HierarchySearchEngine pending;
+
+    /**
+     * 为新图准备收缩层次（后台执行），期间原有的查询引擎继续服务
+     * @return 准备结束（含失败）时完成
+     */
+    public CompletableFuture<Void> prepare(CsrGraph graph) {
+        targetGraph = graph;
+        pending = null;
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> build(graph), buildExecutor);
+    }
+
+    /**
+     * graph 已发布：为其准备好的查询引擎生效，不再保留其他图的引擎
+     */
+    public void activate(CsrGraph graph) {
+        HierarchySearchEngine ready = pending;
+        if (ready != null && ready.getGraph() == graph) {
+            engine = ready;
+            pending = null;
+        } else if (engine != null && engine.getGraph() != graph) {
+            engine = null;
+        }
+    }
+
+    /**
+     * @return 与 graph 对应且已就绪的查询引擎，否则返回 null
+     */
+    public HierarchySearchEngine getEngine(CsrGraph graph) {
+        HierarchySearchEngine current = engine;
+        if (current != null && current.getGraph() == graph) {
+            return current;
+        }
+        current = pending;
+        return current != null && current.getGraph() == graph ? current : null;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    private void build(CsrGraph graph) {
+        try {
+            if (targetGraph != graph) {
+                return; // 已被更新的图取代
+            }
+            ContractionHierarchy hierarchy = load(graph);
+            if (hierarchy == null) {
+                long start = System.currentTimeMillis();
+                hierarchy = ContractionHierarchy.build(graph);
+                logger.info("收缩层次预处理完成: {} 个节点, {} 条捷径, 耗时 {}ms",
+                        hierarchy.nodeCount(), hierarchy.shortcutCount(), System.currentTimeMillis() - start);
+                save(hierarchy, graph);
+            }
+            if (targetGraph == graph) {
+                pending = new HierarchySearchEngine(graph, hierarchy);
+            }
+        } catch (RuntimeException e) {
+            logger.error("收缩层次预处理失败: {}", e.getMessage());
+        }
+    }
+
+    private ContractionHierarchy load(CsrGraph graph) {
+        if (hierarchyFile.isEmpty() || !Files.isRegularFile(Paths.get(hierarchyFile))) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(Paths.get(hierarchyFile))))) {
+            ContractionHierarchy hierarchy = ContractionHierarchy.read(in, graph);
+            logger.info("从 {} 加载收缩层次: {} 条捷径", hierarchyFile, hierarchy.shortcutCount());
+            return hierarchy;
+        } catch (IOException e) {
+            logger.warn("收缩层次文件不可用，重新预处理: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(ContractionHierarchy hierarchy, CsrGraph graph) {
+        if (hierarchyFile.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(hierarchyFile).toAbsolutePath();
+        try {
+            Files.createDirectories(path.getParent());
+            // 先写临时文件再原子替换，避免并发读取到半个文件
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                hierarchy.write(out, graph);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("收缩层次已写入 {}", path);
+        } catch (IOException e) {
+            logger.warn("写入收缩层次文件失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.routeplanner.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 按字节解析 CSV 中的数值字段
+ *
+ * 直接在字节缓冲区上定位字段并解析整数与小数，每行不创建 String 或 String[]。
+ * 字段以逗号分隔，两端的空白与双引号被去除；不处理引号内的逗号（路网数据只含数值字段），
+ * 空行被跳过。对象不是线程安全的，并行解析时每个分块使用独立实例。
+ */
+final class CsvRecordReader {
+
+    // 只记录前若干个字段的位置，之后的字段只计数
+    private static final int MAX_FIELDS = 8;
+    private static final int STREAM_BUFFER_BYTES = 1 << 20;
+    // 10^0 .. 10^22 均可用 double 精确表示
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * 逐行回调，回调中通过 reader 读取当前行的字段
+     */
+    interface RecordHandler {
+        void accept(CsvRecordReader reader);
+    }
+
+    private byte[] buffer;
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private int fieldCount;
+    private int lineStart;
+    private int lineEnd;
+
+    /**
+     * 流式解析整个输入，跳过标题行；内存占用为缓冲区大小与最长行中的较大者
+     */
+    void parse(InputStream in, RecordHandler handler) throws IOException {
+        byte[] data = new byte[STREAM_BUFFER_BYTES];
+        int filled = 0;
+        boolean header = true;
+        for (int read; (read = in.read(data, filled, data.length - filled)) >= 0; ) {
+            filled += read;
+            int last = lastNewline(data, filled);
+            if (last >= 0) {
+                parse(data, 0, last + 1, header, handler);
+                header = false;
+                filled -= last + 1;
+                System.arraycopy(data, last + 1, data, 0, filled);
+            } else if (filled == data.length) {
+                // 单行超过缓冲区，扩容后继续读取
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+        }
+        parse(data, 0, filled, header, handler);
+    }
+
+    /**
+     * 解析 [from, to) 中的各行，最后一行可以不以换行结尾
+     * @param skipFirstLine 是否跳过第一行（标题行）
+     */
+    void parse(byte[] data, int from, int to, boolean skipFirstLine, RecordHandler handler) {
+        this.buffer = data;
+        int pos = from;
+        if (skipFirstLine) {
+            while (pos < to && data[pos] != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+        while (pos < to) {
+            int end = pos;
+            while (end < to && data[end] != '\n') {
+                end++;
+            }
+            if (splitFields(pos, end)) {
+                handler.accept(this);
+            }
+            pos = end + 1;
+        }
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @throws NumberFormatException 字段不是十进制整数或超出 int 范围
+     */
+    int intField(int index) {
+        int pos = starts[index];
+        int end = ends[index];
+        boolean negative = pos < end && buffer[pos] == '-';
+        if (negative || pos < end && buffer[pos] == '+') {
+            pos++;
+        }
+        if (pos == end) {
+            throw new NumberFormatException(line());
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = buffer[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(line());
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException(line());
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException(line());
+        }
+        return (int) value;
+    }
+
+    /**
+     * 解析小数，结果与 {@link Double#parseDouble} 一致
+     *
+     * 有效数字不超过 15 位、小数位不超过 22 位且无指数时，整数尾数与 10 的幂都能精确表示，
+     * 一次除法即为正确舍入的结果；其他写法退回 {@link Double#parseDouble}。
+     * @throws NumberFormatException 字段不是合法的数值
+     */
+    double doubleField(int index) {
+        int start = starts[index];
+        int end = ends[index];
+        int pos = start;
+        boolean negative = pos < end && buffer[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; pos < end; pos++) {
+            byte b = buffer[pos];
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits >= 15) {
+                return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+            }
+            if (mantissa != 0 || digit != 0) {
+                digits++;
+            }
+            mantissa = mantissa * 10 + digit;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        int scale = Math.max(fractionDigits, 0);
+        if (pos == start + (negative ? 1 : 0) || scale >= POWERS_OF_TEN.length
+                || fractionDigits == 0 && end - start == (negative ? 2 : 1)) {
+            return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * 当前行的原文，用于错误日志
+     */
+    String line() {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * 切分 [start, end) 中的字段，空行返回 false
+     */
+    private boolean splitFields(int start, int end) {
+        lineStart = start;
+        lineEnd = end;
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int pos = start; pos <= end; pos++) {
+            if (pos == end || buffer[pos] == ',') {
+                if (fieldCount < MAX_FIELDS) {
+                    int s = fieldStart;
+                    int e = pos;
+                    while (s < e && (buffer[s] <= ' ' || buffer[s] == '"')) {
+                        s++;
+                    }
+                    while (e > s && (buffer[e - 1] <= ' ' || buffer[e - 1] == '"')) {
+                        e--;
+                    }
+                    starts[fieldCount] = s;
+                    ends[fieldCount] = e;
+                }
+                fieldCount++;
+                fieldStart = pos + 1;
+            }
+        }
+        return fieldCount > 1 || ends[0] > starts[0];
+    }
+
+    private static int lastNewline(byte[] data, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
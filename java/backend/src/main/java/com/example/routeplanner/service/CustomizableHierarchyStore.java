@@ -0,0 +1,194 @@
+package com.example.routeplanner.service;
+
+import com.example.routeplanner.graph.ArcFlows;
+import com.example.routeplanner.graph.ArcWeights;
+import com.example.routeplanner.graph.CsrGraph;
+import com.example.routeplanner.graph.CustomizableHierarchy;
+import com.example.routeplanner.graph.CustomizedMetric;
+import com.example.routeplanner.graph.EdgeOverlay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 可定制收缩层次存储
+ *
+ * 与权重无关的层次结构在后台为每张图构建一次；拥堵权重随 (流量表, alpha, 弧距离覆盖) 变化，
+ * 首次查询时在请求线程上定制（同一组合的并发查询只定制一次，其余等待结果），结果按 LRU 缓存少量最近使用的组合。
+ * 流量表在模型版本变化后被替换为新对象，旧组合自然不再命中并被淘汰。
+ * 层次结构只依赖拓扑，新图拓扑不变时直接共享；否则为新图构建期间当前图继续使用原有的层次，
+ * 新图发布后由 {@link #activate} 切换。
+ */
+@Service
+public class CustomizableHierarchyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomizableHierarchyStore.class);
+
+    @Value("${route.planner.customizable-hierarchy.enabled:true}")
+    private boolean enabled;
+
+    @Value("${route.planner.customizable-hierarchy.metric-cache-size:32}")
+    private int metricCacheSize;
+
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "customizable-hierarchy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 最近一次准备的图
+    private volatile CsrGraph targetGraph;
+    // 已发布的图的层次结构
+    private volatile CustomizableHierarchy hierarchy;
+    // 为待发布的图准备好的层次结构
+    private volatile CustomizableHierarchy pending;
+
+    // 访问顺序的 LRU，含定制中的条目，读写均在 this 上同步
+    private final LinkedHashMap<MetricKey, CompletableFuture<CustomizedMetric>> metrics =
+            new LinkedHashMap<MetricKey, CompletableFuture<CustomizedMetric>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MetricKey, CompletableFuture<CustomizedMetric>> eldest) {
+            return size() > metricCacheSize;
+        }
+    };
+
+    /**
+     * 为新图准备层次结构：拓扑不变时立即共享，否则在后台构建，期间原有的层次继续服务
+     * @return 准备结束（含失败）时完成
+     */
+    public CompletableFuture<Void> prepare(CsrGraph graph) {
+        CustomizableHierarchy current = hierarchy != null ? hierarchy : pending;
+        targetGraph = graph;
+        pending = null;
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (current != null && current.getGraph().sameTopology(graph)) {
+            pending = current.withGraph(graph);
+            logger.info("新图拓扑未变，共享可定制收缩层次");
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> build(graph), buildExecutor);
+    }
+
+    /**
+     * graph 已发布：为其准备好的层次结构生效，并清空其他层次上定制的权重
+     */
+    public void activate(CsrGraph graph) {
+        CustomizableHierarchy ready = pending;
+        if (ready != null && ready.getGraph() == graph) {
+            hierarchy = ready;
+            pending = null;
+        } else if (hierarchy != null && hierarchy.getGraph() != graph) {
+            hierarchy = null;
+        }
+        synchronized (this) {
+            metrics.keySet().removeIf(key -> key.hierarchy != hierarchy);
+        }
+    }
+
+    /**
+     * 获取给定权重的定制结果，未缓存时在当前线程定制；其他线程正在定制同一组合时等待其结果
+     * @return 层次结构未就绪、不属于 weights 所在的图或 weights 带有惩罚系数时返回 null
+     */
+    public CustomizedMetric getMetric(CsrGraph graph, ArcWeights weights) {
+        CustomizableHierarchy current = hierarchy;
+        if (current == null || current.getGraph() != graph) {
+            current = pending;
+        }
+        if (current == null || current.getGraph() != graph || weights.hasPenalties()) {
+            return null;
+        }
+
+        MetricKey key = new MetricKey(current, weights.getFlows(), weights.getAlpha(), weights.getOverlay());
+        CompletableFuture<CustomizedMetric> future = new CompletableFuture<>();
+        CompletableFuture<CustomizedMetric> inFlight;
+        synchronized (this) {
+            inFlight = metrics.get(key);
+            if (inFlight == null && (hierarchy == current || pending == current)) {
+                metrics.put(key, future);
+            }
+        }
+        if (inFlight != null) {
+            return inFlight.join();
+        }
+
+        try {
+            long start = System.nanoTime();
+            CustomizedMetric metric = current.customize(weights);
+            logger.debug("定制拥堵权重完成: alpha={}, 耗时 {}ms", weights.getAlpha(), (System.nanoTime() - start) / 1_000_000);
+            future.complete(metric);
+            return metric;
+        } catch (RuntimeException e) {
+            // 定制失败不缓存，等待中的查询一并失败，之后的查询重新定制
+            synchronized (this) {
+                metrics.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    private void build(CsrGraph graph) {
+        try {
+            if (targetGraph != graph) {
+                return; // 已被更新的图取代
+            }
+            long start = System.currentTimeMillis();
+            CustomizableHierarchy built = CustomizableHierarchy.build(graph);
+            if (targetGraph == graph) {
+                pending = built;
+                logger.info("可定制收缩层次构建完成: {} 个节点, {} 条层次边, 耗时 {}ms",
+                        graph.nodeCount(), built.edgeCount(), System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException e) {
+            logger.error("可定制收缩层次构建失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定制结果的键：层次结构、流量表与弧距离覆盖按引用比较，alpha 按值比较
+     */
+    private static final class MetricKey {
+        private final CustomizableHierarchy hierarchy;
+        private final ArcFlows flows;
+        private final double alpha;
+        private final EdgeOverlay overlay;
+
+        MetricKey(CustomizableHierarchy hierarchy, ArcFlows flows, double alpha, EdgeOverlay overlay) {
+            this.hierarchy = hierarchy;
+            this.flows = flows;
+            this.alpha = alpha;
+            this.overlay = overlay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey other = (MetricKey) o;
+            return hierarchy == other.hierarchy && flows == other.flows && Double.compare(alpha, other.alpha) == 0 && overlay == other.overlay;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * System.identityHashCode(hierarchy) + System.identityHashCode(flows);
+            result = 31 * result + Double.hashCode(alpha);
+            return 31 * result + System.identityHashCode(overlay);
+        }
+    }
+}
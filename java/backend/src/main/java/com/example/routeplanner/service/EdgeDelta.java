@@ -0,0 +1,289 @@
+package com.example.routeplanner.service;
+
+import com.example.routeplanner.graph.CsrGraph;
+import com.example.routeplanner.graph.EdgeOverlay;
+import com.example.routeplanner.graph.GeoUtils;
+import com.example.routeplanner.model.EdgeUpdate;
+import com.example.routeplanner.model.EdgeUpdateAction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 相对数据文件的路段变更集合（不可变）
+ *
+ * 变更按有向路段 (from, to) 记录，每条路段只保留最后一次操作，RESTORE 删除记录。
+ * 基础路网由 {@link #compact} 将变更合并进数据文件的图得到，BLOCK 封闭的路段在基础路网中保留为距离正无穷的弧；
+ * 此后的变更由 {@link #overlay} 换算为基础路网上的弧距离覆盖，无需重建图即可生效（包括撤销已合并的封闭）。
+ * 只有基础路网中没有对应弧的新路段需要合并后才能生效。
+ */
+final class EdgeDelta {
+
+    // 数据文件加载出的图
+    final CsrGraph source;
+    // 全部变更，按首次出现的顺序
+    final Map<Long, EdgeUpdate> changes;
+    // 已合并进基础路网的变更
+    final Map<Long, EdgeUpdate> compacted;
+
+    private EdgeDelta(CsrGraph source, Map<Long, EdgeUpdate> changes, Map<Long, EdgeUpdate> compacted) {
+        this.source = source;
+        this.changes = changes;
+        this.compacted = compacted;
+    }
+
+    static EdgeDelta empty(CsrGraph source) {
+        return new EdgeDelta(source, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * 应用一批变更，任一条不合法时整批拒绝
+     * @throws IllegalArgumentException 操作为空、节点或路段不存在、距离不合法
+     */
+    EdgeDelta apply(List<EdgeUpdate> updates) {
+        Map<Long, EdgeUpdate> next = new LinkedHashMap<>(changes);
+        for (EdgeUpdate update : updates) {
+            if (update == null || update.getAction() == null) {
+                throw new IllegalArgumentException("未指定路段变更操作");
+            }
+            applyDirected(next, update, update.getFrom(), update.getTo());
+            if (update.isBidirectional()) {
+                applyDirected(next, update, update.getTo(), update.getFrom());
+            }
+        }
+        return new EdgeDelta(source, Collections.unmodifiableMap(next), compacted);
+    }
+
+    /**
+     * 在新的数据文件图上保留两端节点仍存在的变更，尚未合并
+     */
+    EdgeDelta rebase(CsrGraph newSource) {
+        Map<Long, EdgeUpdate> kept = new LinkedHashMap<>();
+        for (Map.Entry<Long, EdgeUpdate> entry : changes.entrySet()) {
+            EdgeUpdate change = entry.getValue();
+            if (newSource.indexOf(change.getFrom()) >= 0 && newSource.indexOf(change.getTo()) >= 0) {
+                kept.put(entry.getKey(), change);
+            }
+        }
+        return new EdgeDelta(newSource, Collections.unmodifiableMap(kept), Collections.emptyMap());
+    }
+
+    /**
+     * 将全部变更合并进数据文件的图，得到新的基础路网
+     *
+     * REMOVE 的路段被删除，ADD / OVERRIDE 的路段取给定距离，新路段追加在原有边之后；
+     * BLOCK 的路段保留弧但距离为正无穷，使收缩层次等按基础路网构建的结构直接包含封闭，且拓扑与弧下标不变。
+     * 节点及其顺序不变。无变更时直接返回数据文件的图。
+     */
+    CsrGraph compact() {
+        if (changes.isEmpty()) {
+            return source;
+        }
+        int n = source.nodeCount();
+        int m = source.arcCount();
+        int[] nodeIds = new int[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            nodeIds[i] = source.sensorId(i);
+            latitudes[i] = source.latitude(i);
+            longitudes[i] = source.longitude(i);
+        }
+
+        // 按原始边顺序输出，保持边列表的顺序
+        int[] arcOf = new int[m];
+        int[] tailOf = new int[m];
+        for (int u = 0; u < n; u++) {
+            for (int arc = source.firstArc(u), end = source.endArc(u); arc < end; arc++) {
+                arcOf[source.edgeIndex(arc)] = arc;
+                tailOf[source.edgeIndex(arc)] = u;
+            }
+        }
+
+        int capacity = m + changes.size();
+        int[] sources = new int[capacity];
+        int[] destinations = new int[capacity];
+        double[] distances = new double[capacity];
+        int count = 0;
+        Set<Long> present = new HashSet<>();
+        for (int e = 0; e < m; e++) {
+            int arc = arcOf[e];
+            int u = tailOf[e];
+            int v = source.target(arc);
+            long key = key(source.sensorId(u), source.sensorId(v));
+            EdgeUpdate change = changes.get(key);
+            EdgeUpdateAction action = baseAction(change);
+            if (action == EdgeUpdateAction.REMOVE) {
+                continue;
+            }
+            sources[count] = u;
+            destinations[count] = v;
+            distances[count++] = action == EdgeUpdateAction.ADD ? change.getDistance()
+                    : action == EdgeUpdateAction.BLOCK ? Double.POSITIVE_INFINITY : source.distance(arc);
+            present.add(key);
+        }
+        for (Map.Entry<Long, EdgeUpdate> entry : changes.entrySet()) {
+            EdgeUpdate change = entry.getValue();
+            if (baseAction(change) == EdgeUpdateAction.ADD && !present.contains(entry.getKey())) {
+                sources[count] = source.indexOf(change.getFrom());
+                destinations[count] = source.indexOf(change.getTo());
+                distances[count++] = change.getDistance();
+            }
+        }
+        return CsrGraph.fromArcs(nodeIds, latitudes, longitudes, Arrays.copyOf(sources, count),
+                Arrays.copyOf(destinations, count), Arrays.copyOf(distances, count));
+    }
+
+    /**
+     * 标记全部变更已合并进基础路网
+     */
+    EdgeDelta markCompacted() {
+        return new EdgeDelta(source, changes, changes);
+    }
+
+    /**
+     * 基础路网上与当前变更不一致的弧换算为距离覆盖：封闭与删除的弧为正无穷，
+     * 合并后又被撤销的变更恢复数据文件中的距离
+     * @param base 由 {@link #compact} 得到的基础路网
+     */
+    EdgeOverlay overlay(CsrGraph base) {
+        Map<Integer, Double> arcDistances = new HashMap<>();
+        for (long key : dirtyKeys()) {
+            int u = base.indexOf(from(key));
+            int v = base.indexOf(to(key));
+            double desired = effectiveDistance(key);
+            for (int arc = base.firstArc(u), end = base.endArc(u); arc < end; arc++) {
+                if (base.target(arc) == v && Double.compare(base.distance(arc), desired) != 0) {
+                    arcDistances.put(arc, desired);
+                }
+            }
+        }
+        return EdgeOverlay.of(base, arcDistances);
+    }
+
+    /**
+     * 是否有只能通过合并生效的变更，即基础路网中没有对应弧、但当前应当连通的路段
+     */
+    boolean requiresCompaction(CsrGraph base) {
+        for (long key : dirtyKeys()) {
+            if (effectiveDistance(key) < Double.POSITIVE_INFINITY
+                    && base.findArc(base.indexOf(from(key)), base.indexOf(to(key))) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否有尚未合并进基础路网的变更（含封闭与撤销封闭）
+     */
+    boolean hasPendingChanges() {
+        for (long key : dirtyKeys()) {
+            EdgeUpdate current = changes.get(key);
+            EdgeUpdate merged = compacted.get(key);
+            EdgeUpdateAction action = baseAction(current);
+            if (action != baseAction(merged)
+                    || action == EdgeUpdateAction.ADD && Double.compare(current.getDistance(), merged.getDistance()) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 全部变更的副本，按首次出现的顺序
+     */
+    List<EdgeUpdate> changeList() {
+        List<EdgeUpdate> result = new ArrayList<>(changes.size());
+        for (EdgeUpdate change : changes.values()) {
+            result.add(new EdgeUpdate(change.getAction(), change.getFrom(), change.getTo(), change.getDistance()));
+        }
+        return result;
+    }
+
+    private void applyDirected(Map<Long, EdgeUpdate> next, EdgeUpdate update, int from, int to) {
+        int u = source.indexOf(from);
+        int v = source.indexOf(to);
+        if (u < 0 || v < 0) {
+            throw new IllegalArgumentException("节点不存在: " + (u < 0 ? from : to));
+        }
+        if (u == v) {
+            throw new IllegalArgumentException("路段起点与终点相同: " + from);
+        }
+        long key = key(from, to);
+        EdgeUpdateAction action = update.getAction();
+        if (action == EdgeUpdateAction.RESTORE) {
+            next.remove(key);
+            return;
+        }
+        EdgeUpdate existing = next.get(key);
+        boolean exists = existing != null ? existing.getAction() != EdgeUpdateAction.REMOVE : source.findArc(u, v) >= 0;
+        if (action != EdgeUpdateAction.ADD && !exists) {
+            throw new IllegalArgumentException("路段不存在: " + from + " -> " + to);
+        }
+
+        Double distance = null;
+        if (action == EdgeUpdateAction.ADD || action == EdgeUpdateAction.OVERRIDE) {
+            distance = update.getDistance();
+            if (distance == null && action == EdgeUpdateAction.ADD) {
+                distance = GeoUtils.haversineKm(source.latitude(u), source.longitude(u),
+                        source.latitude(v), source.longitude(v));
+            }
+            if (distance == null || !(distance >= 0) || distance.isInfinite()) {
+                throw new IllegalArgumentException("路段距离须为非负有限数: " + from + " -> " + to);
+            }
+        }
+        next.put(key, new EdgeUpdate(action, from, to, distance));
+    }
+
+    /**
+     * 有向路段在当前变更下的有效距离，不存在或封闭时为正无穷
+     */
+    private double effectiveDistance(long key) {
+        EdgeUpdate change = changes.get(key);
+        if (change == null) {
+            int arc = source.findArc(source.indexOf(from(key)), source.indexOf(to(key)));
+            return arc >= 0 ? source.distance(arc) : Double.POSITIVE_INFINITY;
+        }
+        return baseAction(change) == EdgeUpdateAction.ADD ? change.getDistance() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 变更合并进基础路网时的效果：ADD（含 OVERRIDE，取给定距离）、REMOVE、BLOCK（距离为正无穷），或 null（无变更，保留原状）
+     */
+    private static EdgeUpdateAction baseAction(EdgeUpdate change) {
+        if (change == null) {
+            return null;
+        }
+        return change.getAction() == EdgeUpdateAction.OVERRIDE ? EdgeUpdateAction.ADD : change.getAction();
+    }
+
+    /**
+     * 当前或已合并的变更涉及的路段
+     */
+    private Set<Long> dirtyKeys() {
+        Set<Long> keys = new LinkedHashSet<>(changes.keySet());
+        keys.addAll(compacted.keySet());
+        return keys;
+    }
+
+    private static long key(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    private static int from(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int to(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.routeplanner.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 进程内流量预测服务
+ *
+ * 直接加载 XGBoost JSON 模型并在 Java 中推理，无需 Python 模型服务。
+ * 模型文件变化时在下一次版本检查中自动重新加载。
+ */
+@Service
+@ConditionalOnProperty(name = "route.planner.model-mode", havingValue = "embedded")
+public class EmbeddedModelService implements VolumePredictor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedModelService.class);
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${route.planner.model-file}")
+    private String modelFile;
+
+    private volatile LoadedModel loadedModel;
+
+    @PostConstruct
+    public void init() {
+        try {
+            loadedModel = load();
+            logger.info("进程内流量模型加载完成: {} 棵树, 版本 {}",
+                    loadedModel.model.treeCount(), loadedModel.version);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("加载流量模型失败: " + modelFile, e);
+        }
+    }
+
+    @Override
+    public double predictVolume(int nodeId, int timePoint) {
+        LoadedModel current = loadedModel;
+        return current.predict(nodeId, timePoint, new float[current.model.featureCount()]);
+    }
+
+    @Override
+    public double[] predictVolumes(int[] nodeIds, int timePoint) {
+        LoadedModel current = loadedModel;
+        float[] features = new float[current.model.featureCount()];
+        double[] volumes = new double[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++) {
+            volumes[i] = current.predict(nodeIds[i], timePoint, features);
+        }
+        return volumes;
+    }
+
+    @Override
+    public double[] tryPredictVolumes(int[] nodeIds, int timePoint) {
+        return predictVolumes(nodeIds, timePoint);
+    }
+
+    /**
+     * 返回模型文件内容摘要；文件已变化时先重新加载
+     */
+    @Override
+    public String getModelVersion() {
+        try {
+            byte[] content = readModelFile();
+            String version = DigestUtils.md5DigestAsHex(content);
+            if (!version.equals(loadedModel.version)) {
+                loadedModel = parse(content, version);
+                logger.info("流量模型已重新加载, 版本 {}", version);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("检查流量模型文件失败，继续使用当前模型: {}", e.getMessage());
+        }
+        return loadedModel.version;
+    }
+
+    @Override
+    public boolean isServiceAvailable() {
+        return loadedModel != null;
+    }
+
+    private LoadedModel load() throws IOException {
+        byte[] content = readModelFile();
+        return parse(content, DigestUtils.md5DigestAsHex(content));
+    }
+
+    private byte[] readModelFile() throws IOException {
+        Resource resource = resourceLoader.getResource(modelFile);
+        try (InputStream input = resource.getInputStream()) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static LoadedModel parse(byte[] content, String version) throws IOException {
+        XgboostModel model = XgboostModel.load(new ByteArrayInputStream(content));
+        int nodeFeature = model.featureIndex("node");
+        int timeFeature = model.featureIndex("time");
+        if (nodeFeature < 0 || timeFeature < 0) {
+            throw new IllegalArgumentException("模型缺少 node 或 time 特征");
+        }
+        return new LoadedModel(model, version, nodeFeature, timeFeature);
+    }
+
+    /**
+     * 已加载的模型及其版本，整体替换以保证并发读取一致
+     */
+    private static class LoadedModel {
+        final XgboostModel model;
+        final String version;
+        final int nodeFeature;
+        final int timeFeature;
+
+        LoadedModel(XgboostModel model, String version, int nodeFeature, int timeFeature) {
+            this.model = model;
+            this.version = version;
+            this.nodeFeature = nodeFeature;
+            this.timeFeature = timeFeature;
+        }
+
+        double predict(int nodeId, int timePoint, float[] features) {
+            features[nodeFeature] = nodeId;
+            features[timeFeature] = timePoint;
+            // 与 api_server.py 一致，流量下限为 1
+            return Math.max(model.predict(features), 1.0);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.routeplanner.service;
+
+import com.example.routeplanner.graph.CsrGraph;
+import com.example.routeplanner.graph.CsrGraphFile;
+import com.example.routeplanner.graph.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * 路网数据加载
+ *
+ * 节点与边文件按 route.planner.node-data-file / edge-data-file 定位，支持 classpath:、file: 等前缀，
+ * 不带前缀时视为文件系统路径。快照与数据源一致时直接映射快照；否则逐行流式解析 CSV，
+ * 字段直接写入基本类型数组，不保留整份文件的 String[]。本地大文件按换行对齐切块后在搜索线程池上并行解析，
+ * 各块结果按文件顺序拼接，因此与顺序解析得到的图完全相同。
+ */
+@Service
+public class GraphDataLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphDataLoader.class);
+
+    // 不小于该大小的本地文件按块并行解析
+    private static final long PARALLEL_THRESHOLD_BYTES = 16L << 20;
+    private static final int CHUNK_BYTES = 8 << 20;
+    // 每个文件最多逐条记录的解析失败行数
+    private static final int MAX_LOGGED_ERRORS = 10;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    @Qualifier("routeSearchExecutor")
+    private ExecutorService executor;
+
+    @Value("${route.planner.node-data-file}")
+    private String nodeDataFile;
+
+    @Value("${route.planner.edge-data-file}")
+    private String edgeDataFile;
+
+    @Value("${route.planner.graph-snapshot-file:}")
+    private String graphSnapshotFile;
+
+    /**
+     * 加载路网：快照与 CSV 数据源一致时直接映射快照，否则解析 CSV 并重新生成快照
+     */
+    public CsrGraph load() {
+        Resource nodeResource = resolve(nodeDataFile);
+        Resource edgeResource = resolve(edgeDataFile);
+        long sourceStamp = sourceStamp(nodeResource, edgeResource);
+
+        CsrGraph snapshot = readGraphSnapshot(sourceStamp);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        long start = System.currentTimeMillis();
+        NodeTable nodes = loadNodeData(nodeResource);
+        ArcTable arcs = loadEdgeData(edgeResource, nodes);
+        CsrGraph built = CsrGraph.fromArcs(nodes.nodeIds, nodes.latitudes, nodes.longitudes,
+                arcs.sources, arcs.destinations, arcs.distances);
+        logger.info("解析 CSV 构建路网完成，耗时 {}ms", System.currentTimeMillis() - start);
+        if (built.nodeCount() > 0) {
+            writeGraphSnapshot(built, sourceStamp);
+        }
+        return built;
+    }
+
+    /**
+     * 带前缀（classpath:、file:、URL）的位置交给 ResourceLoader，否则按文件系统路径处理
+     */
+    private Resource resolve(String location) {
+        return ResourceUtils.isUrl(location)
+                ? resourceLoader.getResource(location) : new FileSystemResource(location);
+    }
+
+    /**
+     * 数据源标记：各文件内容的 CRC32（流式计算，远快于解析），任一文件变化后快照即过期
+     */
+    private static long sourceStamp(Resource... resources) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        for (Resource resource : resources) {
+            try (InputStream in = resource.getInputStream()) {
+                for (int read; (read = in.read(buffer)) > 0; ) {
+                    crc.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                // 数据源不可读时标记不会与任何快照一致，随后的 CSV 解析会报告错误
+                return -1;
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @return 快照文件存在且与数据源一致时返回映射得到的图，否则返回 null
+     */
+    private CsrGraph readGraphSnapshot(long sourceStamp) {
+        if (graphSnapshotFile.isEmpty() || !Files.isRegularFile(Paths.get(graphSnapshotFile))) {
+            return null;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            CsrGraph snapshot = CsrGraphFile.read(Paths.get(graphSnapshotFile), sourceStamp);
+            logger.info("从快照 {} 加载路网: {} 个节点, {} 条弧, 耗时 {}ms", graphSnapshotFile,
+                    snapshot.nodeCount(), snapshot.arcCount(), System.currentTimeMillis() - start);
+            return snapshot;
+        } catch (IOException e) {
+            logger.info("路网快照不可用，改为解析 CSV: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeGraphSnapshot(CsrGraph graph, long sourceStamp) {
+        if (graphSnapshotFile.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(graphSnapshotFile).toAbsolutePath();
+        try {
+            Files.createDirectories(path.getParent());
+            // 先写临时文件再原子替换，避免其他实例读取到半个文件
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            CsrGraphFile.write(graph, sourceStamp, temp);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("路网快照已写入 {}", path);
+        } catch (IOException e) {
+            logger.warn("写入路网快照失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 加载节点数据（传感器ID, 纬度, 经度），同一ID出现多次时以最后一次为准
+     */
+    private NodeTable loadNodeData(Resource resource) {
+        List<NodeChunk> chunks;
+        try {
+            chunks = parse(resource, NodeChunk::new);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("加载节点数据失败: {}", e.getMessage());
+            return NodeTable.EMPTY;
+        }
+
+        int count = 0;
+        for (NodeChunk chunk : chunks) {
+            count += chunk.size;
+        }
+        int[] ids = new int[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        int offset = 0;
+        for (NodeChunk chunk : chunks) {
+            System.arraycopy(chunk.ids, 0, ids, offset, chunk.size);
+            System.arraycopy(chunk.latitudes, 0, latitudes, offset, chunk.size);
+            System.arraycopy(chunk.longitudes, 0, longitudes, offset, chunk.size);
+            offset += chunk.size;
+        }
+        logErrors("节点", chunks);
+        return NodeTable.of(ids, latitudes, longitudes);
+    }
+
+    /**
+     * 加载边数据（起点ID, 终点ID），每条边生成正反两条弧，端点不存在的边被忽略
+     */
+    private ArcTable loadEdgeData(Resource resource, NodeTable nodes) {
+        List<EdgeChunk> chunks;
+        try {
+            chunks = parse(resource, () -> new EdgeChunk(nodes));
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("加载边数据失败: {}", e.getMessage());
+            return new ArcTable(new int[0], new int[0], new double[0]);
+        }
+
+        int count = 0;
+        for (EdgeChunk chunk : chunks) {
+            count += chunk.size;
+        }
+        int[] sources = new int[count];
+        int[] destinations = new int[count];
+        double[] distances = new double[count];
+        int offset = 0;
+        for (EdgeChunk chunk : chunks) {
+            System.arraycopy(chunk.sources, 0, sources, offset, chunk.size);
+            System.arraycopy(chunk.destinations, 0, destinations, offset, chunk.size);
+            System.arraycopy(chunk.distances, 0, distances, offset, chunk.size);
+            offset += chunk.size;
+        }
+        logErrors("边", chunks);
+        return new ArcTable(sources, destinations, distances);
+    }
+
+    /**
+     * 解析整个文件（跳过标题行），返回按文件顺序排列的各块结果
+     */
+    private <T extends Chunk> List<T> parse(Resource resource, Supplier<T> chunkFactory) throws IOException {
+        if (!resource.isFile() || resource.contentLength() < PARALLEL_THRESHOLD_BYTES) {
+            T chunk = chunkFactory.get();
+            try (InputStream in = resource.getInputStream()) {
+                new CsvRecordReader().parse(in, chunk);
+            }
+            return List.of(chunk);
+        }
+
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel);
+            List<CompletableFuture<T>> tasks = new ArrayList<>(boundaries.length - 1);
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                tasks.add(CompletableFuture.supplyAsync(() -> {
+                    T chunk = chunkFactory.get();
+                    byte[] data = read(channel, start, (int) (end - start));
+                    new CsvRecordReader().parse(data, 0, data.length, start == 0, chunk);
+                    return chunk;
+                }, executor));
+            }
+            List<T> chunks = new ArrayList<>(tasks.size());
+            for (CompletableFuture<T> task : tasks) {
+                chunks.add(task.join());
+            }
+            logger.debug("{} 分 {} 块并行解析", resource.getDescription(), chunks.size());
+            return chunks;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 把文件切成约 CHUNK_BYTES 大小的块，每个边界都位于行首
+     */
+    private static long[] chunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int count = (int) ((size + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        long[] boundaries = new long[count + 1];
+        boundaries[count] = size;
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        for (int i = 1; i < count; i++) {
+            // 从名义边界的前一个字节开始找换行，边界取换行之后
+            long pos = Math.max((long) i * CHUNK_BYTES, boundaries[i - 1]) - 1;
+            long boundary = size;
+            while (pos < size && boundary == size) {
+                window.clear();
+                int read = channel.read(window, pos);
+                if (read <= 0) {
+                    break;
+                }
+                for (int j = 0; j < read; j++) {
+                    if (window.get(j) == '\n') {
+                        boundary = pos + j + 1;
+                        break;
+                    }
+                }
+                pos += read;
+            }
+            boundaries[i] = boundary;
+        }
+        return boundaries;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("文件在读取过程中被截断");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return data;
+    }
+
+    private static void logErrors(String kind, List<? extends Chunk> chunks) {
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            for (String line : chunk.errorLines) {
+                if (total < MAX_LOGGED_ERRORS) {
+                    logger.warn("解析{}数据失败: {}", kind, line);
+                }
+                total++;
+            }
+            total += chunk.errorCount - chunk.errorLines.size();
+        }
+        if (total > MAX_LOGGED_ERRORS) {
+            logger.warn("{}数据共有 {} 行解析失败", kind, total);
+        }
+    }
+
+    /**
+     * 一个分块的解析结果，记录前若干条失败行的原文
+     */
+    private abstract static class Chunk implements CsvRecordReader.RecordHandler {
+        final List<String> errorLines = new ArrayList<>();
+        int errorCount;
+        int size;
+
+        void reject(CsvRecordReader reader) {
+            if (errorLines.size() < MAX_LOGGED_ERRORS) {
+                errorLines.add(reader.line());
+            }
+            errorCount++;
+        }
+
+        static int grow(int capacity) {
+            return Math.max(16, capacity + (capacity >> 1));
+        }
+    }
+
+    private static final class NodeChunk extends Chunk {
+        int[] ids = new int[0];
+        double[] latitudes = new double[0];
+        double[] longitudes = new double[0];
+
+        @Override
+        public void accept(CsvRecordReader reader) {
+            if (reader.fieldCount() < 3) {
+                return;
+            }
+            int sensorId;
+            double latitude;
+            double longitude;
+            try {
+                sensorId = reader.intField(0);
+                latitude = reader.doubleField(1);
+                longitude = reader.doubleField(2);
+            } catch (NumberFormatException e) {
+                reject(reader);
+                return;
+            }
+            if (size == ids.length) {
+                int capacity = grow(size);
+                ids = Arrays.copyOf(ids, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+            }
+            ids[size] = sensorId;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+    }
+
+    private static final class EdgeChunk extends Chunk {
+        private final NodeTable nodes;
+        int[] sources = new int[0];
+        int[] destinations = new int[0];
+        double[] distances = new double[0];
+
+        EdgeChunk(NodeTable nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public void accept(CsvRecordReader reader) {
+            if (reader.fieldCount() < 2) {
+                return;
+            }
+            int from;
+            int to;
+            try {
+                from = Arrays.binarySearch(nodes.nodeIds, reader.intField(0));
+                to = Arrays.binarySearch(nodes.nodeIds, reader.intField(1));
+            } catch (NumberFormatException e) {
+                reject(reader);
+                return;
+            }
+            if (from < 0 || to < 0) {
+                return;
+            }
+            double distance = GeoUtils.haversineKm(nodes.latitudes[from], nodes.longitudes[from],
+                    nodes.latitudes[to], nodes.longitudes[to]);
+            // 创建正反两条弧（无向图）
+            add(from, to, distance);
+            add(to, from, distance);
+        }
+
+        private void add(int from, int to, double distance) {
+            if (size == sources.length) {
+                int capacity = grow(size);
+                sources = Arrays.copyOf(sources, capacity);
+                destinations = Arrays.copyOf(destinations, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+            }
+            sources[size] = from;
+            destinations[size] = to;
+            distances[size] = distance;
+            size++;
+        }
+    }
+
+    /**
+     * 按传感器ID升序、去重后的节点
+     */
+    private static final class NodeTable {
+        static final NodeTable EMPTY = new NodeTable(new int[0], new double[0], new double[0]);
+
+        final int[] nodeIds;
+        final double[] latitudes;
+        final double[] longitudes;
+
+        private NodeTable(int[] nodeIds, double[] latitudes, double[] longitudes) {
+            this.nodeIds = nodeIds;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+
+        /**
+         * 按 (ID, 出现位置) 排序，每个ID保留最后一次出现的坐标
+         */
+        static NodeTable of(int[] ids, double[] latitudes, double[] longitudes) {
+            long[] keys = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                keys[i] = (long) ids[i] << 32 | i;
+            }
+            Arrays.sort(keys);
+
+            int unique = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (i + 1 == keys.length || keys[i + 1] >> 32 != keys[i] >> 32) {
+                    unique++;
+                }
+            }
+            int[] nodeIds = new int[unique];
+            double[] sortedLatitudes = new double[unique];
+            double[] sortedLongitudes = new double[unique];
+            for (int i = 0, next = 0; i < keys.length; i++) {
+                if (i + 1 == keys.length || keys[i + 1] >> 32 != keys[i] >> 32) {
+                    int position = (int) keys[i];
+                    nodeIds[next] = ids[position];
+                    sortedLatitudes[next] = latitudes[position];
+                    sortedLongitudes[next] = longitudes[position];
+                    next++;
+                }
+            }
+            return new NodeTable(nodeIds, sortedLatitudes, sortedLongitudes);
+        }
+    }
+
+    private static final class ArcTable {
+        final int[] sources;
+        final int[] destinations;
+        final double[] distances;
+
+        ArcTable(int[] sources, int[] destinations, double[] distances) {
+            this.sources = sources;
+            this.destinations = destinations;
+            this.distances = distances;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.routeplanner.service;
+
+import com.example.routeplanner.graph.AlternativeRouteFinder;
+import com.example.routeplanner.graph.ArcWeights;
+import com.example.routeplanner.graph.CsrGraph;
+import com.example.routeplanner.graph.EdgeOverlay;
+import com.example.routeplanner.graph.ShortestPathEngine;
+import com.example.routeplanner.graph.SpatialIndex;
+import com.example.routeplanner.model.Edge;
+import com.example.routeplanner.model.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不可变的路网快照
+ *
+ * 图、节点表、边列表与基于该图的搜索结构一起创建，之后不再修改。
+ * 查询开始时取一次当前快照并全程使用；重新加载或路段变更时整体替换为新快照，进行中的查询仍在旧快照上完成。
+ * graph 为合并了路段变更的基础路网（已合并的封闭为距离正无穷的弧），尚未合并的变更由 overlay 表示；
+ * 只改变覆盖层的快照与原快照共享图及搜索结构。节点表与边列表对应基础路网，边列表不含已合并的封闭路段。
+ */
+final class GraphSnapshot {
+
+    // 从 1 开始，每次发布新路网加 1
+    final long version;
+    final long loadedAt;
+    final EdgeDelta delta;
+    final CsrGraph graph;
+    final EdgeOverlay overlay;
+    final Map<Integer, Node> nodes;
+    final List<Edge> edges;
+    final ShortestPathEngine searchEngine;
+    final ArcWeights distanceWeights;
+    final SpatialIndex spatialIndex;
+    final AlternativeRouteFinder alternativeRouteFinder;
+
+    /**
+     * 基于基础路网构建搜索结构，并由图还原节点表与边列表（边按原始顺序排列，跳过距离为正无穷的弧）
+     */
+    GraphSnapshot(long version, EdgeDelta delta, CsrGraph graph, EdgeOverlay overlay,
+                  double penaltyFactor, double maxOverlap, double maxStretch) {
+        this.version = version;
+        this.loadedAt = System.currentTimeMillis();
+        this.delta = delta;
+        this.graph = graph;
+        this.overlay = overlay;
+
+        Map<Integer, Node> nodeMap = new HashMap<>();
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            int sensorId = graph.sensorId(i);
+            nodeMap.put(sensorId, new Node(sensorId, graph.latitude(i), graph.longitude(i)));
+        }
+        Edge[] ordered = new Edge[graph.arcCount()];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                double distance = graph.distance(arc);
+                if (distance < Double.POSITIVE_INFINITY) {
+                    ordered[graph.edgeIndex(arc)] = new Edge(graph.sensorId(u),
+                            graph.sensorId(graph.target(arc)), distance, distance);
+                }
+            }
+        }
+        List<Edge> edgeList = new ArrayList<>(ordered.length);
+        for (Edge edge : ordered) {
+            if (edge != null) {
+                edgeList.add(edge);
+            }
+        }
+        this.nodes = Collections.unmodifiableMap(nodeMap);
+        this.edges = Collections.unmodifiableList(edgeList);
+
+        this.searchEngine = new ShortestPathEngine(graph);
+        this.distanceWeights = ArcWeights.distance(graph).withOverlay(overlay);
+        this.spatialIndex = new SpatialIndex(graph);
+        this.alternativeRouteFinder = new AlternativeRouteFinder(searchEngine, penaltyFactor, maxOverlap, maxStretch);
+    }
+
+    private GraphSnapshot(long version, GraphSnapshot base, EdgeDelta delta, EdgeOverlay overlay) {
+        this.version = version;
+        this.loadedAt = base.loadedAt;
+        this.delta = delta;
+        this.graph = base.graph;
+        this.overlay = overlay;
+        this.nodes = base.nodes;
+        this.edges = base.edges;
+        this.searchEngine = base.searchEngine;
+        this.distanceWeights = ArcWeights.distance(graph).withOverlay(overlay);
+        this.spatialIndex = base.spatialIndex;
+        this.alternativeRouteFinder = base.alternativeRouteFinder;
+    }
+
+    /**
+     * 同一基础路网上替换路段变更与覆盖层
+     */
+    GraphSnapshot withOverlay(long version, EdgeDelta delta, EdgeOverlay overlay) {
+        if (overlay.getGraph() != graph) {
+            throw new IllegalArgumentException("弧距离覆盖不属于当前路网");
+        }
+        return new GraphSnapshot(version, this, delta, overlay);
+    }
+
+    /**
+     * 两张图的节点ID、坐标、拓扑与弧距离是否完全相同
+     */
+    static boolean sameNetwork(CsrGraph a, CsrGraph b) {
+        if (a.nodeCount() != b.nodeCount() || a.arcCount() != b.arcCount() || a.fingerprint() != b.fingerprint()) {
+            return false;
+        }
+        for (int i = 0; i < a.nodeCount(); i++) {
+            if (Double.compare(a.latitude(i), b.latitude(i)) != 0 || Double.compare(a.longitude(i), b.longitude(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
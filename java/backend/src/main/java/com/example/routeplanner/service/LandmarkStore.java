@@ -0,0 +1,113 @@
+package com.example.routeplanner.service;
+
+import com.example.routeplanner.graph.CsrGraph;
+import com.example.routeplanner.graph.Landmarks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ALT 地标存储
+ *
+ * 地标距离表只依赖弧距离，每张图在后台计算一次，之后对所有时间点与 alpha 的拥堵权重通用；
+ * 就绪前 {@link #getLandmarks} 返回 null，调用方退回大圆距离 A*。
+ * 新图与当前图拓扑相同且没有弧变短时直接复用当前的距离表；否则为新图计算期间当前图继续使用原有的地标，
+ * 新图发布后由 {@link #activate} 切换。
+ */
+@Service
+public class LandmarkStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LandmarkStore.class);
+
+    @Value("${route.planner.landmarks.enabled:true}")
+    private boolean enabled;
+
+    @Value("${route.planner.landmarks.count:16}")
+    private int count;
+
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "landmarks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 最近一次准备的图
+    private volatile CsrGraph targetGraph;
+    // 已发布的图的地标
+    private volatile Landmarks landmarks;
+    // 为待发布的图准备好的地标
+    private volatile Landmarks pending;
+
+    /**
+     * 为新图准备地标：可复用时立即完成，否则在后台选取地标并计算距离表，期间原有的地标继续服务
+     * @return 准备结束（含失败）时完成
+     */
+    public CompletableFuture<Void> prepare(CsrGraph graph) {
+        Landmarks current = landmarks != null ? landmarks : pending;
+        targetGraph = graph;
+        pending = null;
+        if (!enabled || graph.nodeCount() == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Landmarks reused = current != null ? current.reuseFor(graph) : null;
+        if (reused != null) {
+            pending = reused;
+            logger.info("新图拓扑未变且没有弧变短，复用 ALT 地标");
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> build(graph), buildExecutor);
+    }
+
+    /**
+     * graph 已发布：为其准备好的地标生效，不再保留其他图的地标
+     */
+    public void activate(CsrGraph graph) {
+        Landmarks ready = pending;
+        if (ready != null && ready.getGraph() == graph) {
+            landmarks = ready;
+            pending = null;
+        } else if (landmarks != null && landmarks.getGraph() != graph) {
+            landmarks = null;
+        }
+    }
+
+    /**
+     * @return 与 graph 对应且已就绪的地标，否则返回 null
+     */
+    public Landmarks getLandmarks(CsrGraph graph) {
+        Landmarks current = landmarks;
+        if (current != null && current.getGraph() == graph) {
+            return current;
+        }
+        current = pending;
+        return current != null && current.getGraph() == graph ? current : null;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    private void build(CsrGraph graph) {
+        try {
+            if (targetGraph != graph) {
+                return; // 已被更新的图取代
+            }
+            long start = System.currentTimeMillis();
+            Landmarks built = Landmarks.build(graph, count);
+            if (targetGraph == graph) {
+                pending = built;
+                logger.info("ALT 地标计算完成: {} 个地标, {} 个节点, 耗时 {}ms",
+                        built.count(), graph.nodeCount(), System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException e) {
+            logger.error("ALT 地标计算失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.routeplanner.service;
+
+/**
+ * 流量模型版本变化事件
+ */
+public class ModelVersionChangedEvent {
+    private final String previousVersion;
+    private final String version;
+
+    public ModelVersionChangedEvent(String previousVersion, String version) {
+        this.previousVersion = previousVersion;
+        this.version = version;
+    }
+
+    public String getPreviousVersion() {
+        return previousVersion;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelVersionChangedEvent{" +
+                "previousVersion='" + previousVersion + '\'' +
+                ", version='" + version + '\'' +
+                '}';
+    }
+}
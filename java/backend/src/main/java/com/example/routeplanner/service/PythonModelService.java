@@ -2,42 +2,108 @@ package com.example.routeplanner.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Python 模型服务接口
+ *
+ * 所有请求共享一个带连接池与 keep-alive 的 HTTP 客户端。
  */
 @Service
-public class PythonModelService {
+@ConditionalOnProperty(name = "route.planner.model-mode", havingValue = "remote", matchIfMissing = true)
+public class PythonModelService implements VolumePredictor {
 
     private static final Logger logger = LoggerFactory.getLogger(PythonModelService.class);
 
     @Value("${route.planner.model-service-url}")
     private String modelServiceUrl;
 
+    @Value("${route.planner.model-max-connections:20}")
+    private int maxConnections;
+
+    @Value("${route.planner.model-timeout-ms:2000}")
+    private int timeoutMs;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        connectionManager = new PoolingHttpClientConnectionManager(60, TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        // 只访问一个模型服务地址，单路由可用全部连接
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(1000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(timeoutMs)
+                .setConnectTimeout(timeoutMs)
+                .setSocketTimeout(timeoutMs)
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.warn("关闭 HTTP 客户端失败: {}", e.getMessage());
+        }
+    }
+
     /**
      * 预测指定节点在指定时间的流量
      * @param nodeId 节点ID
      * @param timePoint 时间点
      * @return 预测的流量值
      */
+    @Override
     public double predictVolume(int nodeId, int timePoint) {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+        double volume = requestVolume(nodeId, timePoint);
+        return Double.isNaN(volume) ? 1.0 : volume; // 默认返回最小流量
+    }
+
+    /**
+     * 单个节点的预测请求，失败或状态码非 200 时返回 NaN
+     */
+    private double requestVolume(int nodeId, int timePoint) {
+        try {
             URI uri = new URIBuilder(modelServiceUrl + "/predict")
                     .setParameter("node", String.valueOf(nodeId))
                     .setParameter("time", String.valueOf(timePoint))
@@ -50,27 +116,121 @@ public class PythonModelService {
                 String responseBody = EntityUtils.toString(response.getEntity());
 
                 if (response.getStatusLine().getStatusCode() == 200) {
-                    JsonNode jsonNode = objectMapper.readTree(responseBody);
-                    double volume = jsonNode.get("volume").asDouble();
+                    JsonNode volumeNode = objectMapper.readTree(responseBody).get("volume");
+                    if (volumeNode == null) {
+                        logger.error("Python 模型服务响应格式错误: {}", responseBody);
+                        return Double.NaN;
+                    }
+                    double volume = volumeNode.asDouble();
 
                     logger.debug("预测节点 {} 在时间点 {} 的流量: {}", nodeId, timePoint, volume);
                     return volume;
                 } else {
                     logger.error("Python 模型服务返回错误状态码: {}, 响应: {}",
                             response.getStatusLine().getStatusCode(), responseBody);
-                    return 1.0; // 默认返回最小流量
+                    return Double.NaN;
                 }
             }
         } catch (URISyntaxException | IOException e) {
             logger.error("调用 Python 模型服务失败: {}", e.getMessage());
-            return 1.0; // 默认返回最小流量
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * 批量预测多个节点在同一时间点的流量，一次请求完成
+     * @param nodeIds 节点ID数组
+     * @param timePoint 时间点
+     * @return 与 nodeIds 一一对应的流量值，服务不可用时为默认最小流量
+     */
+    @Override
+    public double[] predictVolumes(int[] nodeIds, int timePoint) {
+        double[] volumes = tryPredictVolumes(nodeIds, timePoint);
+        if (volumes == null) {
+            volumes = new double[nodeIds.length];
+            Arrays.fill(volumes, 1.0); // 默认返回最小流量
+        }
+        return volumes;
+    }
+
+    /**
+     * 批量预测，失败时返回 null 以便调用方区分真实预测值与默认值
+     */
+    @Override
+    public double[] tryPredictVolumes(int[] nodeIds, int timePoint) {
+        double[] volumes = new double[nodeIds.length];
+        if (nodeIds.length == 0) {
+            return volumes;
+        }
+
+        ObjectNode body = objectMapper.createObjectNode();
+        ArrayNode nodesArray = body.putArray("nodes");
+        for (int nodeId : nodeIds) {
+            nodesArray.add(nodeId);
+        }
+        body.put("time", timePoint);
+
+        HttpPost httpPost = new HttpPost(modelServiceUrl + "/predict_batch");
+        httpPost.setEntity(new StringEntity(body.toString(), ContentType.APPLICATION_JSON));
+
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            String responseBody = EntityUtils.toString(response.getEntity());
+            int statusCode = response.getStatusLine().getStatusCode();
+
+            if (statusCode == 200) {
+                JsonNode volumesNode = objectMapper.readTree(responseBody).get("volumes");
+                if (volumesNode != null && volumesNode.size() == nodeIds.length) {
+                    for (int i = 0; i < volumes.length; i++) {
+                        volumes[i] = volumesNode.get(i).asDouble();
+                    }
+                    logger.debug("批量预测 {} 个节点在时间点 {} 的流量", nodeIds.length, timePoint);
+                    return volumes;
+                }
+                logger.error("Python 模型服务批量响应格式错误: {}", responseBody);
+            } else if (statusCode == 404) {
+                // 旧版模型服务没有批量接口，退化为逐个请求；任一节点失败则整体视为失败
+                logger.warn("Python 模型服务不支持批量预测，改为逐个请求");
+                for (int i = 0; i < nodeIds.length; i++) {
+                    volumes[i] = requestVolume(nodeIds[i], timePoint);
+                    if (Double.isNaN(volumes[i])) {
+                        return null;
+                    }
+                }
+                return volumes;
+            } else {
+                logger.error("Python 模型服务返回错误状态码: {}, 响应: {}", statusCode, responseBody);
+            }
+        } catch (IOException e) {
+            logger.error("调用 Python 模型服务批量预测失败: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 查询当前加载的模型版本
+     * @return 模型版本标识，服务不可用或不支持时返回 null
+     */
+    @Override
+    public String getModelVersion() {
+        HttpGet httpGet = new HttpGet(modelServiceUrl + "/version");
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            String responseBody = EntityUtils.toString(response.getEntity());
+            if (response.getStatusLine().getStatusCode() == 200) {
+                JsonNode versionNode = objectMapper.readTree(responseBody).get("version");
+                return versionNode != null ? versionNode.asText() : null;
+            }
+            logger.debug("Python 模型服务未提供版本信息，状态码: {}", response.getStatusLine().getStatusCode());
+        } catch (IOException e) {
+            logger.debug("查询模型版本失败: {}", e.getMessage());
         }
+        return null;
     }
 
     /**
      * 检查 Python 模型服务是否可用
      * @return 是否可用
      */
+    @Override
     public boolean isServiceAvailable() {
         try {
             double testVolume = predictVolume(1, 100);
@@ -80,4 +240,4 @@ public class PythonModelService {
             return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.example.routeplanner.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class RoutePlannerExecutorConfig {
+
+    /**
+     * 路径搜索线程池：有界队列，队列满时由调用线程直接执行
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService routeSearchExecutor(
+            @Value("${route.planner.search-threads:0}") int searchThreads,
+            @Value("${route.planner.search-queue-capacity:256}") int queueCapacity) {
+        int threads = searchThreads > 0 ? searchThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "route-search-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
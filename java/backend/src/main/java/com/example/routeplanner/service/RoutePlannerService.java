@@ -1,22 +1,44 @@
 package com.example.routeplanner.service;
 
+import com.example.routeplanner.graph.AlternativeRouteFinder;
+import com.example.routeplanner.graph.ArcWeights;
+import com.example.routeplanner.graph.CsrGraph;
+import com.example.routeplanner.graph.CustomizedMetric;
+import com.example.routeplanner.graph.GeoUtils;
+import com.example.routeplanner.graph.HierarchySearchEngine;
+import com.example.routeplanner.graph.Landmarks;
+import com.example.routeplanner.graph.NearestNeighbors;
+import com.example.routeplanner.graph.PathSearchResult;
+import com.example.routeplanner.graph.ReachableNodes;
+import com.example.routeplanner.graph.TravelTimeProfile;
 import com.example.routeplanner.model.Edge;
+import com.example.routeplanner.model.EdgeUpdate;
+import com.example.routeplanner.model.EdgeUpdateResponse;
+import com.example.routeplanner.model.GraphReloadResponse;
+import com.example.routeplanner.model.IsochroneResponse;
+import com.example.routeplanner.model.MatrixRequest;
+import com.example.routeplanner.model.MatrixResponse;
 import com.example.routeplanner.model.Node;
+import com.example.routeplanner.model.RouteAlgorithm;
 import com.example.routeplanner.model.RouteRequest;
 import com.example.routeplanner.model.RouteResponse;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import javax.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 /**
  * 路线规划服务
@@ -26,193 +48,623 @@ public class RoutePlannerService {
 
     private static final Logger logger = LoggerFactory.getLogger(RoutePlannerService.class);
 
+    // 行程时间模型：基础速度（km/h），拥堵因子每增加 1 速度按该系数下降
+    private static final double BASE_SPEED_KMH = 30.0;
+    private static final double CONGESTION_SPEED_FACTOR = 0.1;
+
+    @Autowired
+    private GraphDataLoader graphDataLoader;
+
+    @Autowired
+    private CongestionWeightStore congestionWeightStore;
+
+    @Autowired
+    private ContractionHierarchyStore contractionHierarchyStore;
+
+    @Autowired
+    private CustomizableHierarchyStore customizableHierarchyStore;
+
+    @Autowired
+    private LandmarkStore landmarkStore;
+
     @Autowired
-    private PythonModelService pythonModelService;
+    @Qualifier("routeSearchExecutor")
+    private ExecutorService routeSearchExecutor;
 
     @Value("${route.planner.congestion-alpha}")
     private double congestionAlpha;
 
+    @Value("${route.planner.default-algorithm:DIJKSTRA}")
+    private RouteAlgorithm defaultAlgorithm;
+
+    @Value("${route.planner.forecast-horizon:24}")
+    private int forecastHorizon;
+
+    @Value("${route.planner.time-slot-minutes:60}")
+    private double timeSlotMinutes;
+
+    @Value("${route.planner.alternatives.count:0}")
+    private int alternativeCount;
+
+    @Value("${route.planner.alternatives.max-count:5}")
+    private int alternativeMaxCount;
+
+    @Value("${route.planner.alternatives.penalty-factor:1.4}")
+    private double alternativePenaltyFactor;
+
+    @Value("${route.planner.alternatives.max-overlap:0.7}")
+    private double alternativeMaxOverlap;
+
+    @Value("${route.planner.alternatives.max-stretch:1.5}")
+    private double alternativeMaxStretch;
+
+    @Value("${route.planner.isochrone-max-minutes:240}")
+    private double isochroneMaxMinutes;
+
+    @Value("${route.planner.matrix-max-nodes:1000}")
+    private int matrixMaxNodes;
+
     @Value("${route.planner.max-distance-km}")
     private double maxDistanceKm;
 
-    @Value("${route.planner.node-data-file}")
-    private String nodeDataFile;
-
-    @Value("${route.planner.edge-data-file}")
-    private String edgeDataFile;
+    // 当前路网，查询开始时读取一次；重新加载或路段变更时整体替换
+    private final AtomicReference<GraphSnapshot> snapshot = new AtomicReference<>();
 
-    private Map<Integer, Node> nodes = new HashMap<>();
-    private List<Edge> edges = new ArrayList<>();
-    private Map<Integer, List<Edge>> adjacencyList = new HashMap<>();
+    // 重新加载、路段变更与合并都在该线程上串行执行，快照只由它替换
+    private final ExecutorService updateExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "graph-update");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @PostConstruct
     public void init() {
-        loadNodeData();
-        loadEdgeData();
-        buildAdjacencyList();
-        logger.info("路线规划服务初始化完成，节点数: {}, 边数: {}", nodes.size(), edges.size());
+        GraphSnapshot initial = createSnapshot(EdgeDelta.empty(graphDataLoader.load()), 1);
+        publish(initial, false);
+        logger.info("路线规划服务初始化完成，节点数: {}, 边数: {}", initial.nodes.size(), initial.edges.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        updateExecutor.shutdownNow();
     }
 
     /**
-     * 加载节点数据
+     * 重新加载路网
+     *
+     * 在后台线程读取数据文件并构建新快照，为新图准备好拥堵流量表与各预处理结构后原子地替换当前快照。
+     * 准备期间查询仍在旧快照及其预处理结构上完成，替换后的查询直接使用新图的结构。
+     * 重新加载串行执行，加载失败或路网为空时保留当前路网。两端节点仍存在的路段变更在新路网上重新应用。
      */
-    private void loadNodeData() {
-        try {
-            ClassPathResource resource = new ClassPathResource("data/sensors北交周边.csv");
-            try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-                List<String[]> records = reader.readAll();
-
-                // 跳过标题行
-                for (int i = 1; i < records.size(); i++) {
-                    String[] record = records.get(i);
-                    if (record.length >= 3) {
-                        try {
-                            int sensorId = Integer.parseInt(record[0].trim());
-                            double latitude = Double.parseDouble(record[1].trim());
-                            double longitude = Double.parseDouble(record[2].trim());
-
-                            Node node = new Node(sensorId, latitude, longitude);
-                            nodes.put(sensorId, node);
-                        } catch (NumberFormatException e) {
-                            logger.warn("解析节点数据失败: {}", Arrays.toString(record));
-                        }
-                    }
+    public CompletableFuture<GraphReloadResponse> reloadGraph() {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            GraphSnapshot current = snapshot.get();
+            try {
+                CsrGraph loaded = graphDataLoader.load();
+                if (loaded.nodeCount() == 0 || loaded.arcCount() == 0) {
+                    logger.warn("重新加载的路网为空，保留当前路网");
+                    return reloadResponse(false, "重新加载的路网为空，保留当前路网", current, start);
+                }
+                if (GraphSnapshot.sameNetwork(current.delta.source, loaded)) {
+                    logger.info("路网未变化，保留当前路网版本 {}", current.version);
+                    return reloadResponse(true, "路网未变化", current, start);
                 }
-            } catch (CsvException e) {
-                logger.error("CSV解析错误: {}", e.getMessage());
+
+                GraphSnapshot next = createSnapshot(current.delta.rebase(loaded), current.version + 1);
+                publish(next, true);
+                logger.info("路网重新加载完成: 版本 {}, 节点数 {}, 边数 {}, 耗时 {}ms",
+                        next.version, next.nodes.size(), next.edges.size(), System.currentTimeMillis() - start);
+                return reloadResponse(true, "路网重新加载成功", next, start);
+            } catch (RuntimeException e) {
+                logger.error("路网重新加载失败，保留当前路网: {}", e.getMessage());
+                return reloadResponse(false, "路网重新加载失败: " + e.getMessage(), current, start);
             }
-        } catch (IOException e) {
-            logger.error("加载节点数据失败: {}", e.getMessage());
-        }
+        }, updateExecutor);
     }
 
     /**
-     * 加载边数据
+     * 应用一批路段变更（新增、删除、封闭、覆盖距离或撤销）
+     *
+     * 变更在后台线程上换算为基础路网上的弧距离覆盖，随新快照原子发布，不重建图与预处理结构；
+     * 进行中的查询不受影响。新增的路段改变拓扑，需立即合并进基础路网（同 {@link #compactEdges}）：
+     * 新图立即发布，预处理结构在后台就绪前查询退回普通搜索，之后的路段变更不必排在重建之后。
+     * 任一条变更不合法时整批拒绝。
      */
-    private void loadEdgeData() {
-        try {
-            ClassPathResource resource = new ClassPathResource("data/edges.csv");
-            try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-                List<String[]> records = reader.readAll();
-
-                // 跳过标题行
-                for (int i = 1; i < records.size(); i++) {
-                    String[] record = records.get(i);
-                    if (record.length >= 2) {
-                        try {
-                            int from = Integer.parseInt(record[0].trim());
-                            int to = Integer.parseInt(record[1].trim());
-
-                            Node fromNode = nodes.get(from);
-                            Node toNode = nodes.get(to);
-
-                            if (fromNode != null && toNode != null) {
-                                double distance = calculateDistance(fromNode, toNode);
-                                Edge edge = new Edge(from, to, distance);
-                                edges.add(edge);
-
-                                // 创建反向边（无向图）
-                                Edge reverseEdge = new Edge(to, from, distance);
-                                edges.add(reverseEdge);
-                            }
-                        } catch (NumberFormatException e) {
-                            logger.warn("解析边数据失败: {}", Arrays.toString(record));
-                        }
-                    }
+    public CompletableFuture<EdgeUpdateResponse> updateEdges(List<EdgeUpdate> updates) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            GraphSnapshot current = snapshot.get();
+            try {
+                EdgeDelta delta = current.delta.apply(updates);
+                boolean compact = delta.requiresCompaction(current.graph);
+                GraphSnapshot next = compact
+                        ? createSnapshot(delta, current.version + 1)
+                        : current.withOverlay(current.version + 1, delta, delta.overlay(current.graph));
+                if (compact) {
+                    publish(next, false);
+                } else {
+                    snapshot.set(next);
                 }
-            } catch (CsvException e) {
-                logger.error("CSV解析错误: {}", e.getMessage());
+                logger.info("路段变更已生效: {} 条, 版本 {}, 覆盖弧数 {}, 合并 {}, 耗时 {}ms", updates.size(),
+                        next.version, next.overlay.overriddenArcs(), compact, System.currentTimeMillis() - start);
+                return edgeUpdateResponse(true, "路段变更已生效", next, compact);
+            } catch (IllegalArgumentException e) {
+                return edgeUpdateResponse(false, e.getMessage(), current, false);
+            } catch (RuntimeException e) {
+                logger.error("路段变更失败，保留当前路网: {}", e.getMessage());
+                return edgeUpdateResponse(false, "路段变更失败: " + e.getMessage(), current, false);
             }
-        } catch (IOException e) {
-            logger.error("加载边数据失败: {}", e.getMessage());
-        }
+        }, updateExecutor);
     }
 
     /**
-     * 构建邻接表
+     * 将尚未合并的路段变更合并进基础路网
+     *
+     * 在后台线程构建新图与快照并立即发布，各预处理结构在后台就绪前查询退回普通搜索，
+     * 使之后的封闭等路段变更不必排在重建之后；
+     * 只改变弧距离的合并共享原有的拥堵流量表与可定制收缩层次，没有弧变短时也复用地标；
+     * 封闭的路段以距离正无穷的弧合并，合并后覆盖层为空，收缩层次与地标重新覆盖全部变更。没有待合并的变更时不做处理。
      */
-    private void buildAdjacencyList() {
-        for (Edge edge : edges) {
-            adjacencyList.computeIfAbsent(edge.getFrom(), k -> new ArrayList<>()).add(edge);
-        }
+    public CompletableFuture<EdgeUpdateResponse> compactEdges() {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            GraphSnapshot current = snapshot.get();
+            if (!current.delta.hasPendingChanges()) {
+                return edgeUpdateResponse(true, "没有待合并的路段变更", current, false);
+            }
+            try {
+                GraphSnapshot next = createSnapshot(current.delta, current.version + 1);
+                publish(next, false);
+                logger.info("路段变更合并完成: 版本 {}, 边数 {}, 耗时 {}ms",
+                        next.version, next.edges.size(), System.currentTimeMillis() - start);
+                return edgeUpdateResponse(true, "路段变更合并完成", next, true);
+            } catch (RuntimeException e) {
+                logger.error("路段变更合并失败，保留当前路网: {}", e.getMessage());
+                return edgeUpdateResponse(false, "路段变更合并失败: " + e.getMessage(), current, false);
+            }
+        }, updateExecutor);
     }
 
     /**
-     * 计算两点间距离（使用 Haversine 公式）
+     * 定期合并路段变更
      */
-    private double calculateDistance(Node node1, Node node2) {
-        double lat1 = Math.toRadians(node1.getLatitude());
-        double lon1 = Math.toRadians(node1.getLongitude());
-        double lat2 = Math.toRadians(node2.getLatitude());
-        double lon2 = Math.toRadians(node2.getLongitude());
+    @Scheduled(fixedDelayString = "${route.planner.edge-updates.compaction-interval-ms:300000}")
+    public void scheduleCompaction() {
+        compactEdges();
+    }
 
-        double dlat = lat2 - lat1;
-        double dlon = lon2 - lon1;
+    /**
+     * 当前生效的路段变更
+     */
+    public EdgeUpdateResponse getEdgeChanges() {
+        return edgeUpdateResponse(true, "查询成功", snapshot.get(), false);
+    }
 
-        double a = Math.sin(dlat / 2) * Math.sin(dlat / 2) +
-                Math.cos(lat1) * Math.cos(lat2) *
-                        Math.sin(dlon / 2) * Math.sin(dlon / 2);
+    /**
+     * 将路段变更合并进数据文件的图，构建基础路网与覆盖层
+     */
+    private GraphSnapshot createSnapshot(EdgeDelta delta, long version) {
+        CsrGraph base = delta.compact();
+        EdgeDelta compacted = delta.markCompacted();
+        return new GraphSnapshot(version, compacted, base, compacted.overlay(base),
+                alternativePenaltyFactor, alternativeMaxOverlap, alternativeMaxStretch);
+    }
 
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double r = 6371; // 地球半径（公里）
+    /**
+     * 为新图准备各存储后发布快照；各存储按图区分，旧快照上的查询不会取到新图的结构
+     * @param await 是否等各存储准备结束再发布：重新加载时等待，使替换前的查询一直使用旧图的结构；
+     *              启动与路段变更合并时立即发布，结构在后台就绪前查询退回普通搜索，
+     *              避免更新线程上之后的路段变更排在重建之后
+     */
+    private void publish(GraphSnapshot next, boolean await) {
+        CsrGraph graph = next.graph;
+        long start = System.currentTimeMillis();
+        // 准备失败的结构在新图上缺席，查询退回普通搜索，不阻止发布
+        CompletableFuture<Void> ready = CompletableFuture.allOf(
+                congestionWeightStore.prepare(graph),
+                contractionHierarchyStore.prepare(graph),
+                customizableHierarchyStore.prepare(graph),
+                landmarkStore.prepare(graph)).handle((ignored, error) -> null);
+        if (await) {
+            ready.join();
+            logger.info("新路网的预处理结构已就绪，耗时 {}ms", System.currentTimeMillis() - start);
+        }
+        snapshot.set(next);
+        ready.thenRun(() -> {
+            if (snapshot.get().graph == graph) {
+                congestionWeightStore.activate(graph);
+                contractionHierarchyStore.activate(graph);
+                customizableHierarchyStore.activate(graph);
+                landmarkStore.activate(graph);
+            }
+        });
+    }
+
+    private static GraphReloadResponse reloadResponse(boolean success, String message, GraphSnapshot network, long start) {
+        GraphReloadResponse response = new GraphReloadResponse(success, message);
+        response.setVersion(network.version);
+        response.setNodeCount(network.nodes.size());
+        response.setEdgeCount(network.edges.size());
+        response.setDurationMs(System.currentTimeMillis() - start);
+        return response;
+    }
 
-        return c * r;
+    private static EdgeUpdateResponse edgeUpdateResponse(boolean success, String message, GraphSnapshot network,
+                                                         boolean compacted) {
+        EdgeUpdateResponse response = new EdgeUpdateResponse(success, message);
+        response.setVersion(network.version);
+        response.setChanges(network.delta.changeList());
+        response.setOverriddenArcs(network.overlay.overriddenArcs());
+        response.setCompacted(compacted);
+        return response;
     }
 
     /**
      * 规划路径 - 同时返回最优路径和最短距离路径
+     *
+     * 拥堵权重只存在于本次查询的 {@link ArcWeights} 视图中，不修改共享的边对象，
+     * 因此可被多个请求线程并发调用。
      */
     public RouteResponse planRoute(RouteRequest request) {
-        if (!nodes.containsKey(request.getStartNode()) || !nodes.containsKey(request.getEndNode())) {
+        return planRoute(snapshot.get(), request, null);
+    }
+
+    /**
+     * @param sharedCongestion 批量规划时同组请求共享的拥堵权重，为空时按请求构建
+     */
+    private RouteResponse planRoute(GraphSnapshot network, RouteRequest request, ArcWeights sharedCongestion) {
+        if (!network.nodes.containsKey(request.getStartNode()) || !network.nodes.containsKey(request.getEndNode())) {
             return new RouteResponse(false, "起点或终点不存在");
         }
 
         try {
-            // 1. 计算考虑拥堵的最优路径
-            RouteResponse.PathResult optimalPath = calculateOptimalPath(request);
+            SearchOutcome outcome = sharedCongestion != null
+                    ? searchRoutes(network, request, sharedCongestion) : searchRoutes(network, request);
+            RouteResponse.PathResult shortestPath = buildShortestDistancePath(network, outcome.shortest, outcome.congestion, outcome.profile);
+            RouteResponse response = buildRouteResponse(outcome.optimalPath, shortestPath);
+            attachAlternatives(network, response, request, outcome);
+            return response;
+
+        } catch (Exception e) {
+            logger.error("路径规划失败: {}", e.getMessage());
+            return new RouteResponse(false, "路径规划失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批量规划路径
+     *
+     * 请求按 (timePoint, alpha) 分组，每组只构建一次拥堵权重（并预先完成可定制收缩层次的定制），
+     * 组内请求在搜索线程池上并行规划。每条结果完成后立即以 (请求下标, 响应) 回调 listener，
+     * 回调可能来自多个线程，顺序与请求顺序无关。
+     * @return 全部请求处理完成（均已回调）后完成
+     */
+    public CompletableFuture<Void> planBatch(List<RouteRequest> requests, BiConsumer<Integer, RouteResponse> listener) {
+        // 分发本身也在线程池上执行：队列满时由分发线程直接执行任务，而不占用调用方线程
+        return CompletableFuture.supplyAsync(() -> dispatchBatch(requests, listener), routeSearchExecutor)
+                .thenCompose(tasks -> tasks);
+    }
+
+    private CompletableFuture<Void> dispatchBatch(List<RouteRequest> requests, BiConsumer<Integer, RouteResponse> listener) {
+        // 整批请求使用同一路网，批量规划期间的重新加载不影响本批结果
+        GraphSnapshot network = snapshot.get();
+        Map<BatchKey, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RouteRequest request = requests.get(i);
+            groups.computeIfAbsent(new BatchKey(request.getTimePoint(), request.getCongestionAlpha()),
+                    key -> new ArrayList<>()).add(i);
+        }
+        logger.info("批量规划: {} 个请求, {} 个分组", requests.size(), groups.size());
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(requests.size());
+        for (Map.Entry<BatchKey, List<Integer>> group : groups.entrySet()) {
+            BatchKey key = group.getKey();
+            boolean useHierarchy = anyWithoutAlgorithm(requests, group.getValue());
+            CompletableFuture<ArcWeights> congestion = CompletableFuture.supplyAsync(() -> {
+                ArcWeights weights = buildCongestionWeights(network, key.timePoint, key.alpha);
+                // 组内有请求会使用层次时，并发查询前先完成定制
+                if (useHierarchy) {
+                    customizableHierarchyStore.getMetric(network.graph, weights);
+                }
+                return weights;
+            }, routeSearchExecutor);
+
+            for (int index : group.getValue()) {
+                RouteRequest request = requests.get(index);
+                tasks.add(congestion.handleAsync((weights, error) -> {
+                    RouteResponse response = error != null
+                            ? new RouteResponse(false, "路径规划失败: " + rootMessage(error))
+                            : planRoute(network, request, weights);
+                    listener.accept(index, response);
+                    return null;
+                }, routeSearchExecutor));
+            }
+        }
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * 一次搜索同时得到考虑拥堵与不考虑拥堵（alpha = 0）两种规划结果
+     *
+     * alpha = 0 时拥堵权重等于距离，其最优路径与最短路径都是距离最短路径，
+     * 因此直接复用本次的最短距离搜索结果，无需再次规划。
+     */
+    public DualRoute planDualRoute(RouteRequest request) {
+        GraphSnapshot network = snapshot.get();
+        if (!network.nodes.containsKey(request.getStartNode()) || !network.nodes.containsKey(request.getEndNode())) {
+            RouteResponse error = new RouteResponse(false, "起点或终点不存在");
+            return new DualRoute(error, error);
+        }
+
+        try {
+            SearchOutcome outcome = searchRoutes(network, request);
+
+            RouteResponse congestionAware = buildRouteResponse(outcome.optimalPath,
+                    buildShortestDistancePath(network, outcome.shortest, outcome.congestion, outcome.profile));
+            attachAlternatives(network, congestionAware, request, outcome);
+            RouteResponse distanceOnly = buildRouteResponse(
+                    buildOptimalPath(network, outcome.shortest, network.distanceWeights, null),
+                    buildShortestDistancePath(network, outcome.shortest, network.distanceWeights, null));
 
-            // 2. 计算绝对距离最短路径
-            RouteResponse.PathResult shortestPath = calculateShortestDistancePath(request);
+            return new DualRoute(congestionAware, distanceOnly);
 
-            // 3. 构建响应
-            RouteResponse response = new RouteResponse(true, "路径规划成功");
-            response.setOptimalPath(optimalPath);
-            response.setShortestPath(shortestPath);
+        } catch (Exception e) {
+            logger.error("路径规划失败: {}", e.getMessage());
+            RouteResponse error = new RouteResponse(false, "路径规划失败: " + e.getMessage());
+            return new DualRoute(error, error);
+        }
+    }
+
+    /**
+     * 计算起点集合到终点集合的行程代价矩阵
+     *
+     * 拥堵权重只构建一次；每个起点执行一次一对多搜索（全部终点确定即停止），
+     * 各起点提交到搜索线程池并行计算，各自写入矩阵的一行。
+     */
+    public MatrixResponse computeMatrix(MatrixRequest request) {
+        List<Integer> sourceIds = request.getSources();
+        List<Integer> targetIds = request.getTargets() == null || request.getTargets().isEmpty()
+                ? sourceIds : request.getTargets();
+        if (sourceIds == null || sourceIds.isEmpty()) {
+            return new MatrixResponse(false, "起点列表不能为空");
+        }
+        if (sourceIds.size() > matrixMaxNodes || targetIds.size() > matrixMaxNodes) {
+            return new MatrixResponse(false, "起点或终点个数超过上限 " + matrixMaxNodes);
+        }
 
-            // 4. 添加比较信息
-            String comparisonMessage = buildComparisonMessage(optimalPath, shortestPath);
-            response.setMessage(response.getMessage() + "\n" + comparisonMessage);
+        GraphSnapshot network = snapshot.get();
+        int[] sources = toIndices(network, sourceIds);
+        int[] targets = toIndices(network, targetIds);
+        if (sources == null || targets == null) {
+            return new MatrixResponse(false, "起点或终点不存在");
+        }
 
+        try {
+            long start = System.currentTimeMillis();
+            ArcWeights congestion = buildCongestionWeights(network, request.getTimePoint(), request.getCongestionAlpha());
+
+            double[][] distances = new double[sources.length][];
+            double[][] congestions = new double[sources.length][];
+            double[][] travelTimes = new double[sources.length][];
+            CompletableFuture<?>[] rows = new CompletableFuture<?>[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                int row = i;
+                rows[i] = CompletableFuture.runAsync(() -> {
+                    double[] weightRow = new double[targets.length];
+                    double[] distanceRow = new double[targets.length];
+                    network.searchEngine.searchOneToMany(sources[row], targets, congestion, weightRow, distanceRow);
+                    double[] timeRow = new double[targets.length];
+                    for (int j = 0; j < targets.length; j++) {
+                        if (weightRow[j] == Double.POSITIVE_INFINITY) {
+                            weightRow[j] = -1;
+                            distanceRow[j] = -1;
+                            timeRow[j] = -1;
+                        } else {
+                            timeRow[j] = arcTravelTime(distanceRow[j], weightRow[j]);
+                        }
+                    }
+                    distances[row] = distanceRow;
+                    congestions[row] = weightRow;
+                    travelTimes[row] = timeRow;
+                }, routeSearchExecutor);
+            }
+            joinSearch(CompletableFuture.allOf(rows));
+
+            MatrixResponse response = new MatrixResponse(true, "矩阵计算成功");
+            response.setSources(sourceIds);
+            response.setTargets(targetIds);
+            response.setDistances(distances);
+            response.setCongestions(congestions);
+            response.setTravelTimes(travelTimes);
+            logger.info("代价矩阵计算完成: {} x {}, 耗时 {}ms",
+                    sources.length, targets.length, System.currentTimeMillis() - start);
             return response;
 
         } catch (Exception e) {
-            logger.error("路径规划失败: {}", e.getMessage());
-            return new RouteResponse(false, "路径规划失败: " + e.getMessage());
+            logger.error("代价矩阵计算失败: {}", e.getMessage());
+            return new MatrixResponse(false, "代价矩阵计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 计算从起点出发、在时间预算内可到达的全部节点（等时圈）
+     *
+     * 一次有界的时间依赖搜索即可得到全部可达节点及到达时间，弧通行时间与
+     * {@link #estimateTravelTime} 同一模型，拥堵按到达各弧时所在的时间点取值。
+     * @param minutes 时间预算（分钟）
+     * @param includeHull 是否返回可达节点的凸包
+     */
+    public IsochroneResponse computeIsochrone(int startNode, int timePoint, double congestionAlpha,
+                                              double minutes, boolean includeHull) {
+        GraphSnapshot network = snapshot.get();
+        int source = network.graph.indexOf(startNode);
+        if (source < 0) {
+            return new IsochroneResponse(false, "起点不存在");
+        }
+        if (!(minutes > 0) || minutes > isochroneMaxMinutes) {
+            return new IsochroneResponse(false, "时间预算须在 0 到 " + isochroneMaxMinutes + " 分钟之间");
+        }
+
+        try {
+            ArcWeights congestion = buildCongestionWeights(network, timePoint, congestionAlpha);
+            ReachableNodes reachable = network.searchEngine.searchReachable(source,
+                    buildTravelTimeProfile(network, timePoint, congestionAlpha, congestion), minutes);
+
+            List<IsochroneResponse.ReachableNode> reachableNodes = new ArrayList<>(reachable.size());
+            double[] latitudes = new double[reachable.size()];
+            double[] longitudes = new double[reachable.size()];
+            for (int i = 0; i < reachable.size(); i++) {
+                int node = reachable.node(i);
+                latitudes[i] = network.graph.latitude(node);
+                longitudes[i] = network.graph.longitude(node);
+                reachableNodes.add(new IsochroneResponse.ReachableNode(network.graph.sensorId(node),
+                        latitudes[i], longitudes[i], reachable.arrivalTime(i)));
+            }
+
+            IsochroneResponse response = new IsochroneResponse(true, "等时圈计算成功");
+            response.setSourceNode(startNode);
+            response.setTimePoint(timePoint);
+            response.setMinutes(minutes);
+            response.setReachableNodes(reachableNodes);
+            if (includeHull) {
+                List<double[]> hull = new ArrayList<>();
+                for (int i : GeoUtils.convexHull(longitudes, latitudes)) {
+                    hull.add(new double[]{latitudes[i], longitudes[i]});
+                }
+                response.setHull(hull);
+            }
+            logger.info("等时圈计算完成: 起点 {}, {} 分钟内可达 {} 个节点", startNode, minutes, reachable.size());
+            return response;
+
+        } catch (Exception e) {
+            logger.error("等时圈计算失败: {}", e.getMessage());
+            return new IsochroneResponse(false, "等时圈计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将节点ID列表转换为 CSR 下标
+     * @return 存在未知节点时返回 null
+     */
+    private int[] toIndices(GraphSnapshot network, List<Integer> nodeIds) {
+        int[] indices = new int[nodeIds.size()];
+        for (int i = 0; i < indices.length; i++) {
+            Integer nodeId = nodeIds.get(i);
+            indices[i] = nodeId != null ? network.graph.indexOf(nodeId) : -1;
+            if (indices[i] < 0) {
+                return null;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * 执行两种搜索：最短距离搜索提交到搜索线程池，
+     * 与拥堵流量获取及最优路径搜索并行执行
+     */
+    private SearchOutcome searchRoutes(GraphSnapshot network, RouteRequest request) {
+        // 1. 异步计算绝对距离最短路径（不依赖拥堵数据）
+        CompletableFuture<DijkstraResult> shortestSearch = CompletableFuture.supplyAsync(
+                () -> searchShortestDistancePath(network, request), routeSearchExecutor);
+
+        // 2. 获取拥堵权重并计算考虑拥堵的最优路径
+        ArcWeights congestion = buildCongestionWeights(network, request.getTimePoint(), request.getCongestionAlpha());
+        TravelTimeProfile profile = resolveTravelTimeProfile(network, request, congestion);
+        DijkstraResult optimal = calculateOptimalPath(network, request, congestion, profile);
+
+        return new SearchOutcome(congestion, profile, optimal, buildOptimalPath(network, optimal, congestion, profile),
+                joinSearch(shortestSearch));
+    }
+
+    /**
+     * 使用给定拥堵权重在当前线程依次执行两种搜索
+     *
+     * 批量规划的任务本身已运行在搜索线程池上，不再提交子任务，避免线程池内互相等待。
+     */
+    private SearchOutcome searchRoutes(GraphSnapshot network, RouteRequest request, ArcWeights congestion) {
+        TravelTimeProfile profile = resolveTravelTimeProfile(network, request, congestion);
+        DijkstraResult optimal = calculateOptimalPath(network, request, congestion, profile);
+        return new SearchOutcome(congestion, profile, optimal, buildOptimalPath(network, optimal, congestion, profile),
+                searchShortestDistancePath(network, request));
+    }
+
+    /**
+     * 时间依赖搜索使用的通行时间，其他算法返回 null
+     */
+    private TravelTimeProfile resolveTravelTimeProfile(GraphSnapshot network, RouteRequest request, ArcWeights congestion) {
+        return resolveAlgorithm(request) == RouteAlgorithm.TIME_DEPENDENT
+                ? buildTravelTimeProfile(network, request.getTimePoint(), request.getCongestionAlpha(), congestion) : null;
+    }
+
+    /**
+     * 构建响应并添加比较信息
+     */
+    private RouteResponse buildRouteResponse(RouteResponse.PathResult optimalPath, RouteResponse.PathResult shortestPath) {
+        RouteResponse response = new RouteResponse(true, "路径规划成功");
+        response.setOptimalPath(optimalPath);
+        response.setShortestPath(shortestPath);
+
+        String comparisonMessage = buildComparisonMessage(optimalPath, shortestPath);
+        response.setMessage(response.getMessage() + "\n" + comparisonMessage);
+        return response;
+    }
+
+    private static String rootMessage(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+                ? error.getCause().getMessage() : error.getMessage();
+    }
+
+    /**
+     * 等待异步搜索完成，并还原搜索中抛出的异常
+     */
+    private static <T> T joinSearch(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
         }
     }
 
     /**
      * 计算考虑拥堵的最优路径
      */
-    private RouteResponse.PathResult calculateOptimalPath(RouteRequest request) {
+    private DijkstraResult calculateOptimalPath(GraphSnapshot network, RouteRequest request, ArcWeights congestion,
+                                                TravelTimeProfile profile) {
         logger.info("开始计算最优路径（考虑拥堵）");
 
-        // 为所有边计算拥堵系数
-        calculateCongestionForEdges(request.getTimePoint(), request.getCongestionAlpha());
-
-        // 使用 Dijkstra 算法计算最短路径（基于拥堵权重）
-        DijkstraResult result = dijkstra(request.getStartNode(), request.getEndNode(), true);
+        DijkstraResult result;
+        if (profile != null) {
+            // 时间依赖搜索：各弧拥堵随到达时刻变化，无法使用按单一时间点定制的层次
+            result = timeDependentSearch(network, profile, request.getStartNode(), request.getEndNode());
+        } else {
+            // 请求未指定算法且可定制收缩层次就绪时在定制后的层次上查询，否则按请求的算法搜索（基于拥堵权重）
+            CustomizedMetric metric = request.getAlgorithm() == null
+                    ? customizableHierarchyStore.getMetric(network.graph, congestion) : null;
+            result = metric != null
+                    ? customizedSearch(network, metric, request.getStartNode(), request.getEndNode())
+                    : dijkstra(network, request.getStartNode(), request.getEndNode(), congestion, resolveAlgorithm(request));
+        }
 
         if (result.path.isEmpty()) {
             throw new RuntimeException("无法找到最优路径");
         }
+        return result;
+    }
 
+    /**
+     * 汇总最优路径的统计信息
+     *
+     * profile 为空时 result 须为按 congestion 权重搜索得到的结果；
+     * 否则 result 为时间依赖搜索结果，拥堵按各弧的进入时刻重新计算。
+     */
+    private RouteResponse.PathResult buildOptimalPath(GraphSnapshot network, DijkstraResult result, ArcWeights congestion,
+                                                      TravelTimeProfile profile) {
         RouteResponse.PathResult pathResult = new RouteResponse.PathResult("最优路径（考虑拥堵）");
-        pathResult.setPath(result.path);
-        pathResult.setTotalCongestion(result.totalWeight);
-        pathResult.setTotalDistance(calculateTotalDistance(result.path));
-        pathResult.setPathEdges(getPathEdges(result.path));
-        pathResult.setTravelTime(estimateTravelTime(pathResult.getTotalDistance(), pathResult.getTotalCongestion()));
+        fillCongestionPath(network, pathResult, result, congestion, profile);
 
         logger.info("最优路径计算完成: 距离={}km, 拥堵指数={}, 预计时间={}分钟",
                 pathResult.getTotalDistance(), pathResult.getTotalCongestion(), pathResult.getTravelTime());
@@ -221,26 +673,79 @@ public class RoutePlannerService {
     }
 
     /**
-     * 计算绝对距离最短路径
+     * 按拥堵权重填充路径统计信息，约定同 {@link #buildOptimalPath}
      */
-    private RouteResponse.PathResult calculateShortestDistancePath(RouteRequest request) {
-        logger.info("开始计算最短距离路径");
+    private void fillCongestionPath(GraphSnapshot network, RouteResponse.PathResult pathResult, DijkstraResult result,
+                                    ArcWeights congestion, TravelTimeProfile profile) {
+        double[] arcCongestion = calculateArcCongestion(result, congestion, profile);
+        pathResult.setPath(result.path);
+        pathResult.setTotalCongestion(profile != null ? sum(arcCongestion) : result.totalWeight);
+        pathResult.setTotalDistance(calculateTotalDistance(network, result.arcs));
+        pathResult.setPathEdges(getPathEdges(network, result, arcCongestion, true));
+        pathResult.setTravelTime(estimateTravelTime(pathResult.getTotalDistance(), pathResult.getTotalCongestion()));
+    }
 
-        // 重置所有边的权重为距离
-        resetEdgeWeightsToDistance();
+    /**
+     * 在最优路径之外附加备选路径（惩罚法），条数由请求或默认配置决定，为 0 时不计算
+     *
+     * 直接以本次已求得的最优路径为第一条路径，备选路径按拥堵权重（出发时间点）搜索。
+     */
+    private void attachAlternatives(GraphSnapshot network, RouteResponse response, RouteRequest request, SearchOutcome outcome) {
+        int count = Math.min(request.getAlternatives() != null ? request.getAlternatives() : alternativeCount,
+                alternativeMaxCount);
+        if (count <= 0) {
+            return;
+        }
 
-        // 使用 Dijkstra 算法计算最短路径（基于距离）
-        DijkstraResult result = dijkstra(request.getStartNode(), request.getEndNode(), false);
+        int source = network.graph.indexOf(request.getStartNode());
+        int target = network.graph.indexOf(request.getEndNode());
+        List<AlternativeRouteFinder.Alternative> found = network.alternativeRouteFinder.find(
+                source, target, outcome.congestion, outcome.optimal.arcs, count);
+
+        List<RouteResponse.AlternativePath> alternatives = new ArrayList<>(found.size());
+        for (AlternativeRouteFinder.Alternative alternative : found) {
+            int rank = alternatives.size() + 1;
+            RouteResponse.AlternativePath pathResult = new RouteResponse.AlternativePath("备选路径" + rank);
+            fillCongestionPath(network, pathResult, toDijkstraResult(network, alternative.getPath()), outcome.congestion, outcome.profile);
+            pathResult.setRank(rank);
+            pathResult.setOverlap(alternative.getOverlap());
+            pathResult.setStretch(alternative.getStretch());
+            alternatives.add(pathResult);
+        }
+        response.setAlternatives(alternatives);
+        logger.info("备选路径计算完成: 请求 {} 条, 找到 {} 条", count, alternatives.size());
+    }
+
+    /**
+     * 搜索绝对距离最短路径
+     */
+    private DijkstraResult searchShortestDistancePath(GraphSnapshot network, RouteRequest request) {
+        logger.info("开始计算最短距离路径");
+
+        // 请求未指定算法、收缩层次就绪且没有弧距离覆盖时直接用其查询，否则按请求的算法搜索（基于覆盖后的距离）
+        HierarchySearchEngine hierarchy = request.getAlgorithm() == null && network.overlay.isEmpty()
+                ? contractionHierarchyStore.getEngine(network.graph) : null;
+        DijkstraResult result = hierarchy != null
+                ? hierarchySearch(network, hierarchy, request.getStartNode(), request.getEndNode())
+                : dijkstra(network, request.getStartNode(), request.getEndNode(), network.distanceWeights, resolveAlgorithm(request));
 
         if (result.path.isEmpty()) {
             throw new RuntimeException("无法找到最短距离路径");
         }
+        return result;
+    }
 
+    /**
+     * 汇总绝对距离最短路径的统计信息
+     */
+    private RouteResponse.PathResult buildShortestDistancePath(GraphSnapshot network, DijkstraResult result, ArcWeights congestion,
+                                                               TravelTimeProfile profile) {
+        double[] arcCongestion = calculateArcCongestion(result, congestion, profile);
         RouteResponse.PathResult pathResult = new RouteResponse.PathResult("最短距离路径");
         pathResult.setPath(result.path);
         pathResult.setTotalDistance(result.totalWeight);
-        pathResult.setTotalCongestion(calculatePathCongestion(result.path, request.getTimePoint(), request.getCongestionAlpha()));
-        pathResult.setPathEdges(getPathEdges(result.path));
+        pathResult.setTotalCongestion(sum(arcCongestion));
+        pathResult.setPathEdges(getPathEdges(network, result, arcCongestion, false));
         pathResult.setTravelTime(estimateTravelTime(pathResult.getTotalDistance(), pathResult.getTotalCongestion()));
 
         logger.info("最短距离路径计算完成: 距离={}km, 拥堵指数={}, 预计时间={}分钟",
@@ -250,166 +755,177 @@ public class RoutePlannerService {
     }
 
     /**
-     * Dijkstra 算法实现
+     * 是否有请求未指定算法（未指定算法的请求在层次就绪时使用层次查询）
      */
-    private DijkstraResult dijkstra(int startNode, int endNode, boolean useCongestionWeight) {
-        Map<Integer, Double> distances = new HashMap<>();
-        Map<Integer, Integer> previous = new HashMap<>();
-        PriorityQueue<Map.Entry<Integer, Double>> pq = new PriorityQueue<>(
-                Map.Entry.comparingByValue());
-
-        // 初始化距离
-        for (int nodeId : nodes.keySet()) {
-            distances.put(nodeId, Double.MAX_VALUE);
-        }
-        distances.put(startNode, 0.0);
-        pq.offer(new AbstractMap.SimpleEntry<>(startNode, 0.0));
-
-        while (!pq.isEmpty()) {
-            Map.Entry<Integer, Double> current = pq.poll();
-            int currentNode = current.getKey();
-            double currentDist = current.getValue();
-
-            if (currentDist > distances.get(currentNode)) {
-                continue;
-            }
-
-            if (currentNode == endNode) {
-                break; // 找到目标节点，提前结束
-            }
-
-            List<Edge> neighbors = adjacencyList.get(currentNode);
-            if (neighbors != null) {
-                for (Edge edge : neighbors) {
-                    int neighbor = edge.getTo();
-                    double weight = useCongestionWeight ? edge.getWeight() : edge.getDistance();
-                    double newDist = currentDist + weight;
-
-                    if (newDist < distances.get(neighbor)) {
-                        distances.put(neighbor, newDist);
-                        previous.put(neighbor, currentNode);
-                        pq.offer(new AbstractMap.SimpleEntry<>(neighbor, newDist));
-                    }
-                }
+    private static boolean anyWithoutAlgorithm(List<RouteRequest> requests, List<Integer> indices) {
+        for (int index : indices) {
+            if (requests.get(index).getAlgorithm() == null) {
+                return true;
             }
         }
+        return false;
+    }
 
-        // 重构路径
-        List<Integer> path = new ArrayList<>();
-        Integer current = endNode;
+    /**
+     * 请求未指定算法时使用默认配置
+     */
+    private RouteAlgorithm resolveAlgorithm(RouteRequest request) {
+        return request.getAlgorithm() != null ? request.getAlgorithm() : defaultAlgorithm;
+    }
 
-        if (!distances.containsKey(current) || distances.get(current) == Double.MAX_VALUE) {
-            return new DijkstraResult(new ArrayList<>(), 0.0);
+    /**
+     * 点到点最短路径搜索（基于 CSR 图与索引堆，按 algorithm 选择搜索算法）
+     *
+     * 静态权重不随时间变化，TIME_DEPENDENT 在此退化为标准 Dijkstra。
+     */
+    private DijkstraResult dijkstra(GraphSnapshot network, int startNode, int endNode, ArcWeights weights, RouteAlgorithm algorithm) {
+        int source = network.graph.indexOf(startNode);
+        int target = network.graph.indexOf(endNode);
+        if (source < 0 || target < 0) {
+            return DijkstraResult.EMPTY;
         }
 
-        while (current != null) {
-            path.add(current);
-            current = previous.get(current);
+        PathSearchResult result;
+        switch (algorithm) {
+            case ASTAR:
+                result = network.searchEngine.searchAStar(source, target, weights);
+                break;
+            case ALT:
+                // 地标未就绪时退回大圆距离 A*
+                Landmarks landmarks = landmarkStore.getLandmarks(network.graph);
+                result = landmarks != null
+                        ? network.searchEngine.searchAlt(source, target, weights, landmarks)
+                        : network.searchEngine.searchAStar(source, target, weights);
+                break;
+            case BIDIRECTIONAL:
+                result = network.searchEngine.searchBidirectional(source, target, weights);
+                break;
+            default:
+                result = network.searchEngine.search(source, target, weights);
         }
-        Collections.reverse(path);
-
-        return new DijkstraResult(path, distances.get(endNode));
+        return toDijkstraResult(network, result);
     }
 
     /**
-     * 为所有边计算拥堵系数
+     * 基于收缩层次的按距离最短路径搜索
      */
-    private void calculateCongestionForEdges(int timePoint, double alpha) {
-        Map<Integer, Double> nodeVolumeCache = new HashMap<>();
-
-        for (Edge edge : edges) {
-            double flowFrom = nodeVolumeCache.computeIfAbsent(edge.getFrom(),
-                    nodeId -> pythonModelService.predictVolume(nodeId, timePoint));
-            double flowTo = nodeVolumeCache.computeIfAbsent(edge.getTo(),
-                    nodeId -> pythonModelService.predictVolume(nodeId, timePoint));
-
-            double avgFlow = (flowFrom + flowTo) / 2.0;
-            double congestion = edge.getDistance() * (1 + alpha * avgFlow);
-            edge.setWeight(congestion);
-            edge.setCongestion(congestion);
+    private DijkstraResult hierarchySearch(GraphSnapshot network, HierarchySearchEngine hierarchy, int startNode, int endNode) {
+        int source = network.graph.indexOf(startNode);
+        int target = network.graph.indexOf(endNode);
+        if (source < 0 || target < 0) {
+            return DijkstraResult.EMPTY;
         }
+        return toDijkstraResult(network, hierarchy.search(source, target));
     }
 
     /**
-     * 重置边的权重为距离
+     * 基于可定制收缩层次的搜索，权重为定制时使用的弧权重
      */
-    private void resetEdgeWeightsToDistance() {
-        for (Edge edge : edges) {
-            edge.setWeight(edge.getDistance());
+    private DijkstraResult customizedSearch(GraphSnapshot network, CustomizedMetric metric, int startNode, int endNode) {
+        int source = network.graph.indexOf(startNode);
+        int target = network.graph.indexOf(endNode);
+        if (source < 0 || target < 0) {
+            return DijkstraResult.EMPTY;
         }
+        return toDijkstraResult(network, metric.getHierarchy().search(metric, source, target));
     }
 
     /**
-     * 计算路径的拥堵指数
+     * 时间依赖搜索，结果的总权重为行程分钟数
      */
-    private double calculatePathCongestion(List<Integer> path, int timePoint, double alpha) {
-        if (path.size() < 2) {
-            return 0.0;
+    private DijkstraResult timeDependentSearch(GraphSnapshot network, TravelTimeProfile profile, int startNode, int endNode) {
+        int source = network.graph.indexOf(startNode);
+        int target = network.graph.indexOf(endNode);
+        if (source < 0 || target < 0) {
+            return DijkstraResult.EMPTY;
         }
+        PathSearchResult result = network.searchEngine.searchTimeDependent(source, target, profile);
+        logger.debug("时间依赖搜索完成: 行程 {} 分钟, 使用 {} 个时间段的流量",
+                result.getTotalWeight(), profile.materializedSlots());
+        return toDijkstraResult(network, result);
+    }
 
-        double totalCongestion = 0.0;
-        Map<Integer, Double> nodeVolumeCache = new HashMap<>();
-
-        for (int i = 0; i < path.size() - 1; i++) {
-            int from = path.get(i);
-            int to = path.get(i + 1);
-
-            // 找到对应的边
-            Edge edge = findEdge(from, to);
-            if (edge != null) {
-                double flowFrom = nodeVolumeCache.computeIfAbsent(from,
-                        nodeId -> pythonModelService.predictVolume(nodeId, timePoint));
-                double flowTo = nodeVolumeCache.computeIfAbsent(to,
-                        nodeId -> pythonModelService.predictVolume(nodeId, timePoint));
+    /**
+     * 将以下标表示的搜索结果转换为传感器ID路径
+     */
+    private DijkstraResult toDijkstraResult(GraphSnapshot network, PathSearchResult result) {
+        if (!result.isFound()) {
+            return DijkstraResult.EMPTY;
+        }
 
-                double avgFlow = (flowFrom + flowTo) / 2.0;
-                double congestion = edge.getDistance() * (1 + alpha * avgFlow);
-                totalCongestion += congestion;
-            }
+        List<Integer> path = new ArrayList<>(result.getNodes().length);
+        for (int index : result.getNodes()) {
+            path.add(network.graph.sensorId(index));
         }
+        return new DijkstraResult(path, result.getArcs(), result.getTotalWeight());
+    }
 
-        return totalCongestion;
+    /**
+     * 为本次查询构建拥堵权重视图，流量取自预热的流量表，距离取覆盖后的有效距离
+     */
+    private ArcWeights buildCongestionWeights(GraphSnapshot network, int timePoint, double alpha) {
+        return ArcWeights.congestion(network.graph, congestionWeightStore.getArcFlows(network.graph, timePoint), alpha)
+                .withOverlay(network.overlay);
     }
 
     /**
-     * 查找边
+     * 从 departure 时间点出发的时间依赖通行时间，出发时间段复用已获取的拥堵权重，其余时间段在搜索到达时才获取
      */
-    private Edge findEdge(int from, int to) {
-        for (Edge edge : edges) {
-            if (edge.getFrom() == from && edge.getTo() == to) {
-                return edge;
-            }
+    private TravelTimeProfile buildTravelTimeProfile(GraphSnapshot network, int departure, double alpha, ArcWeights congestion) {
+        return new TravelTimeProfile(departure, forecastHorizon, timeSlotMinutes,
+                slot -> slot == departure ? congestion : buildCongestionWeights(network, slot, alpha),
+                RoutePlannerService::arcTravelTime);
+    }
+
+    /**
+     * 计算路径上每条弧的拥堵值，直接使用搜索记录的弧；
+     * profile 不为空时按沿路径推进的时钟取各弧进入时刻的拥堵
+     */
+    private double[] calculateArcCongestion(DijkstraResult result, ArcWeights congestion, TravelTimeProfile profile) {
+        if (profile != null) {
+            return profile.weightsAlong(result.arcs);
+        }
+        double[] arcCongestion = new double[result.arcs.length];
+        for (int i = 0; i < arcCongestion.length; i++) {
+            arcCongestion[i] = congestion.weight(result.arcs[i]);
+        }
+        return arcCongestion;
+    }
+
+    private static double sum(double[] values) {
+        double total = 0.0;
+        for (double value : values) {
+            total += value;
         }
-        return null;
+        return total;
     }
 
     /**
-     * 计算路径总距离
+     * 计算路径总距离：累加路径各弧覆盖后的有效距离，与 pathEdges 中的距离一致
      */
-    private double calculateTotalDistance(List<Integer> path) {
+    private double calculateTotalDistance(GraphSnapshot network, int[] arcs) {
         double totalDistance = 0;
-        for (int i = 0; i < path.size() - 1; i++) {
-            Node fromNode = nodes.get(path.get(i));
-            Node toNode = nodes.get(path.get(i + 1));
-            totalDistance += calculateDistance(fromNode, toNode);
+        for (int arc : arcs) {
+            totalDistance += network.overlay.distance(arc);
         }
         return totalDistance;
     }
 
     /**
-     * 获取路径中的边
+     * 获取路径中的边（返回本次查询的副本，权重与拥堵值按本次查询填充）
      */
-    private List<Edge> getPathEdges(List<Integer> path) {
-        List<Edge> pathEdges = new ArrayList<>();
-        for (int i = 0; i < path.size() - 1; i++) {
-            int from = path.get(i);
-            int to = path.get(i + 1);
-
-            // 找到对应的边
-            Edge edge = findEdge(from, to);
-            if (edge != null) {
-                pathEdges.add(edge);
-            }
+    private List<Edge> getPathEdges(GraphSnapshot network, DijkstraResult result, double[] arcCongestion, boolean useCongestionWeight) {
+        List<Integer> path = result.path;
+        int[] arcs = result.arcs;
+        List<Edge> pathEdges = new ArrayList<>(arcs.length);
+        for (int i = 0; i < arcs.length; i++) {
+            // 搜索时记录的弧即为 path[i] -> path[i+1] 的边
+            int arc = arcs[i];
+            double edgeCongestion = arcCongestion[i];
+            Edge pathEdge = new Edge(path.get(i), path.get(i + 1), network.overlay.distance(arc),
+                    useCongestionWeight ? edgeCongestion : network.overlay.distance(arc));
+            pathEdge.setCongestion(edgeCongestion);
+            pathEdges.add(pathEdge);
         }
         return pathEdges;
     }
@@ -418,15 +934,21 @@ public class RoutePlannerService {
      * 估算行程时间（分钟）
      */
     private double estimateTravelTime(double distance, double congestion) {
-        // 基础速度: 30 km/h
-        double baseSpeed = 30.0;
         // 拥堵因子影响速度
         double congestionFactor = congestion / distance;
-        double adjustedSpeed = baseSpeed / (1 + congestionFactor * 0.1);
+        double adjustedSpeed = BASE_SPEED_KMH / (1 + congestionFactor * CONGESTION_SPEED_FACTOR);
         // 返回分钟
         return (distance / adjustedSpeed) * 60;
     }
 
+    /**
+     * 单条弧的行程时间（分钟），与 {@link #estimateTravelTime} 同一模型：
+     * 各弧之和等于按路径总距离与总拥堵估算的时间，且距离为 0 的弧也有定义
+     */
+    private static double arcTravelTime(double distance, double congestion) {
+        return (distance + congestion * CONGESTION_SPEED_FACTOR) / BASE_SPEED_KMH * 60;
+    }
+
     /**
      * 构建比较信息
      */
@@ -460,28 +982,133 @@ public class RoutePlannerService {
     }
 
     /**
-     * 获取所有节点
+     * 找到距离指定经纬度最近的节点
+     * @return 节点ID，没有节点时返回 -1
+     */
+    public int findNearestNode(double latitude, double longitude) {
+        GraphSnapshot network = snapshot.get();
+        int index = network.spatialIndex.nearest(latitude, longitude);
+        return index >= 0 ? network.graph.sensorId(index) : -1;
+    }
+
+    /**
+     * 找到距离指定经纬度最近的若干节点
+     * @return 节点ID -> 距离（公里），按距离升序
+     */
+    public LinkedHashMap<Integer, Double> findNearestNodes(double latitude, double longitude, int count) {
+        GraphSnapshot network = snapshot.get();
+        NearestNeighbors neighbors = network.spatialIndex.nearest(latitude, longitude, count);
+        LinkedHashMap<Integer, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < neighbors.size(); i++) {
+            result.put(network.graph.sensorId(neighbors.node(i)), neighbors.distance(i));
+        }
+        return result;
+    }
+
+    /**
+     * 获取所有节点（当前路网，只读）
      */
     public Map<Integer, Node> getAllNodes() {
-        return nodes;
+        return snapshot.get().nodes;
     }
 
     /**
-     * 获取所有边
+     * 获取所有边（当前路网，只读）
      */
     public List<Edge> getAllEdges() {
-        return edges;
+        return snapshot.get().edges;
+    }
+
+    /**
+     * 当前路网版本，启动时为 1，每次重新加载并发布新路网后加 1
+     */
+    public long getGraphVersion() {
+        return snapshot.get().version;
+    }
+
+    /**
+     * 考虑拥堵与不考虑拥堵的双路径规划结果
+     */
+    public static class DualRoute {
+        private final RouteResponse congestionAwareRoute;
+        private final RouteResponse distanceOnlyRoute;
+
+        DualRoute(RouteResponse congestionAwareRoute, RouteResponse distanceOnlyRoute) {
+            this.congestionAwareRoute = congestionAwareRoute;
+            this.distanceOnlyRoute = distanceOnlyRoute;
+        }
+
+        public RouteResponse getCongestionAwareRoute() {
+            return congestionAwareRoute;
+        }
+
+        public RouteResponse getDistanceOnlyRoute() {
+            return distanceOnlyRoute;
+        }
+    }
+
+    /**
+     * 批量规划的分组键：共享拥堵权重的 (时间点, alpha)
+     */
+    private static final class BatchKey {
+        final int timePoint;
+        final double alpha;
+
+        BatchKey(int timePoint, double alpha) {
+            this.timePoint = timePoint;
+            this.alpha = alpha;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey) o;
+            return timePoint == other.timePoint && Double.compare(alpha, other.alpha) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * timePoint + Double.hashCode(alpha);
+        }
+    }
+
+    /**
+     * 一次规划的搜索结果
+     */
+    private static class SearchOutcome {
+        final ArcWeights congestion;
+        // 时间依赖搜索使用的通行时间，其他算法为 null
+        final TravelTimeProfile profile;
+        final DijkstraResult optimal;
+        final RouteResponse.PathResult optimalPath;
+        final DijkstraResult shortest;
+
+        SearchOutcome(ArcWeights congestion, TravelTimeProfile profile, DijkstraResult optimal,
+                      RouteResponse.PathResult optimalPath, DijkstraResult shortest) {
+            this.congestion = congestion;
+            this.profile = profile;
+            this.optimal = optimal;
+            this.optimalPath = optimalPath;
+            this.shortest = shortest;
+        }
     }
 
     /**
      * Dijkstra 算法结果类
      */
     private static class DijkstraResult {
+        static final DijkstraResult EMPTY = new DijkstraResult(Collections.emptyList(), new int[0], 0.0);
+
         final List<Integer> path;
+        // arcs[i] 为 path[i] -> path[i+1] 经过的 CSR 弧
+        final int[] arcs;
         final double totalWeight;
 
-        DijkstraResult(List<Integer> path, double totalWeight) {
+        DijkstraResult(List<Integer> path, int[] arcs, double totalWeight) {
             this.path = path;
+            this.arcs = arcs;
             this.totalWeight = totalWeight;
         }
     }
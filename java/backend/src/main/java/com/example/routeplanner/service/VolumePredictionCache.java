@@ -0,0 +1,227 @@
+package com.example.routeplanner.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流量预测缓存 - 位于 {@link VolumePredictor} 之前的进程级缓存
+ *
+ * 以 (节点, 时间点) 打包成的 long 为键，按分段 LRU 限制容量，条目超过 TTL 后失效；
+ * 定期检查模型版本，版本变化时清空全部缓存并发布 {@link ModelVersionChangedEvent}。
+ * 每次清空使缓存代数加 1，清空前发起、清空后才返回的模型请求不再写入缓存。
+ */
+@Service
+public class VolumePredictionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VolumePredictionCache.class);
+
+    private static final int SEGMENT_COUNT = 16;
+
+    @Autowired
+    private VolumePredictor volumePredictor;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${route.planner.volume-cache.max-size:100000}")
+    private int maxSize;
+
+    @Value("${route.planner.volume-cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    private Segment[] segments;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile String modelVersion;
+
+    @PostConstruct
+    public void init() {
+        int segmentCapacity = Math.max(1, maxSize / SEGMENT_COUNT);
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        modelVersion = volumePredictor.getModelVersion();
+        logger.info("流量预测缓存初始化完成，容量: {}, TTL: {}秒, 模型版本: {}", maxSize, ttlSeconds, modelVersion);
+    }
+
+    /**
+     * 获取单个节点的预测流量
+     */
+    public double getVolume(int nodeId, int timePoint) {
+        return getVolumes(new int[]{nodeId}, timePoint)[0];
+    }
+
+    /**
+     * 批量获取预测流量，未命中的节点合并为一次模型请求
+     * @param nodeIds 节点ID数组
+     * @param timePoint 时间点
+     * @return 与 nodeIds 一一对应的流量值，模型服务不可用时未命中部分为默认最小流量
+     */
+    public double[] getVolumes(int[] nodeIds, int timePoint) {
+        double[] volumes = tryGetVolumes(nodeIds, timePoint);
+        if (volumes == null) {
+            volumes = new double[nodeIds.length];
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < nodeIds.length; i++) {
+                long key = key(nodeIds[i], timePoint);
+                double cached = segmentFor(key).get(key, now);
+                volumes[i] = Double.isNaN(cached) ? 1.0 : cached;
+            }
+        }
+        return volumes;
+    }
+
+    /**
+     * 批量获取预测流量
+     * @return 与 nodeIds 一一对应的流量值，存在未命中且模型服务不可用时返回 null
+     */
+    public double[] tryGetVolumes(int[] nodeIds, int timePoint) {
+        double[] volumes = new double[nodeIds.length];
+        int[] missIndices = new int[nodeIds.length];
+        int missCount = 0;
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < nodeIds.length; i++) {
+            long key = key(nodeIds[i], timePoint);
+            double cached = segmentFor(key).get(key, now);
+            if (Double.isNaN(cached)) {
+                missIndices[missCount++] = i;
+            } else {
+                volumes[i] = cached;
+            }
+        }
+
+        if (missCount == 0) {
+            return volumes;
+        }
+
+        int[] missNodeIds = new int[missCount];
+        for (int i = 0; i < missCount; i++) {
+            missNodeIds[i] = nodeIds[missIndices[i]];
+        }
+        logger.debug("流量缓存未命中 {}/{} 个节点，时间点 {}", missCount, nodeIds.length, timePoint);
+
+        long fetchGeneration = generation.get();
+        double[] fetched = volumePredictor.tryPredictVolumes(missNodeIds, timePoint);
+        if (fetched == null) {
+            // 模型服务不可用，不写入缓存
+            return null;
+        }
+
+        long expiresAt = now + ttlSeconds * 1000;
+        for (int i = 0; i < missCount; i++) {
+            volumes[missIndices[i]] = fetched[i];
+            long key = key(missNodeIds[i], timePoint);
+            segmentFor(key).put(key, fetched[i], expiresAt, fetchGeneration);
+        }
+        return volumes;
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        // 先加代数再逐段清空：写入与清空在分段锁内互斥，旧代数的写入要么被清掉，要么被拒绝
+        generation.incrementAndGet();
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        logger.info("流量预测缓存已清空");
+    }
+
+    /**
+     * 定期检查模型版本，版本变化时清空缓存
+     */
+    @Scheduled(fixedDelayString = "${route.planner.volume-cache.version-check-interval-ms:60000}")
+    public void checkModelVersion() {
+        String latestVersion = volumePredictor.getModelVersion();
+        if (latestVersion != null && !latestVersion.equals(modelVersion)) {
+            String previousVersion = modelVersion;
+            logger.info("检测到模型版本变化: {} -> {}", previousVersion, latestVersion);
+            modelVersion = latestVersion;
+            invalidateAll();
+            eventPublisher.publishEvent(new ModelVersionChangedEvent(previousVersion, latestVersion));
+        }
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private static long key(int nodeId, int timePoint) {
+        return ((long) nodeId << 32) | (timePoint & 0xffffffffL);
+    }
+
+    private Segment segmentFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * 缓存分段：访问顺序的 LinkedHashMap 实现 LRU 淘汰
+     */
+    private class Segment {
+        private final LinkedHashMap<Long, double[]> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<Long, double[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        /**
+         * @return 缓存的流量，未命中或已过期返回 NaN
+         */
+        synchronized double get(long key, long now) {
+            double[] entry = entries.get(key);
+            if (entry == null) {
+                return Double.NaN;
+            }
+            // entry[0] 为流量，entry[1] 为过期时间戳
+            if (entry[1] < now) {
+                entries.remove(key);
+                return Double.NaN;
+            }
+            return entry[0];
+        }
+
+        /**
+         * 写入缓存，期间缓存已被清空（代数变化）时放弃写入
+         */
+        synchronized void put(long key, double volume, long expiresAt, long expectedGeneration) {
+            if (generation.get() != expectedGeneration) {
+                return;
+            }
+            entries.put(key, new double[]{volume, expiresAt});
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
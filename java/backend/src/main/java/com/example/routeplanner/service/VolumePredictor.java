@@ -0,0 +1,40 @@
+package com.example.routeplanner.service;
+
+/**
+ * 节点流量预测接口
+ *
+ * 由 route.planner.model-mode 选择实现：remote 调用 Python 模型服务，embedded 在进程内推理。
+ */
+public interface VolumePredictor {
+
+    /**
+     * 预测指定节点在指定时间的流量
+     * @param nodeId 节点ID
+     * @param timePoint 时间点
+     * @return 预测的流量值，失败时为默认最小流量
+     */
+    double predictVolume(int nodeId, int timePoint);
+
+    /**
+     * 批量预测多个节点在同一时间点的流量
+     * @return 与 nodeIds 一一对应的流量值，失败时为默认最小流量
+     */
+    double[] predictVolumes(int[] nodeIds, int timePoint);
+
+    /**
+     * 批量预测
+     * @return 与 nodeIds 一一对应的流量值，失败时返回 null 以便调用方区分真实预测值与默认值
+     */
+    double[] tryPredictVolumes(int[] nodeIds, int timePoint);
+
+    /**
+     * 当前模型版本
+     * @return 模型版本标识，不可用时返回 null
+     */
+    String getModelVersion();
+
+    /**
+     * 预测服务是否可用
+     */
+    boolean isServiceAvailable();
+}
@@ -0,0 +1,152 @@
+package com.example.routeplanner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * XGBoost 回归模型的纯 Java 推理实现
+ *
+ * 解析 {@code save_model} 生成的 JSON，把所有树展平到同一组原始数组中，
+ * 推理时按 float 精度逐棵累加叶子值，与 XGBoost 的预测结果一致。
+ */
+final class XgboostModel {
+
+    private final String[] featureNames;
+    private final float baseScore;
+
+    // 第 t 棵树的根节点在全局数组中的位置
+    private final int[] treeRoots;
+    // 全局节点数组，子节点下标已换算为全局下标，叶子节点 left = -1
+    private final int[] leftChildren;
+    private final int[] rightChildren;
+    private final int[] splitFeatures;
+    private final float[] splitConditions;
+    private final boolean[] defaultLeft;
+
+    private XgboostModel(String[] featureNames, float baseScore, int[] treeRoots,
+                         int[] leftChildren, int[] rightChildren, int[] splitFeatures,
+                         float[] splitConditions, boolean[] defaultLeft) {
+        this.featureNames = featureNames;
+        this.baseScore = baseScore;
+        this.treeRoots = treeRoots;
+        this.leftChildren = leftChildren;
+        this.rightChildren = rightChildren;
+        this.splitFeatures = splitFeatures;
+        this.splitConditions = splitConditions;
+        this.defaultLeft = defaultLeft;
+    }
+
+    /**
+     * 从 XGBoost JSON 模型加载
+     */
+    static XgboostModel load(InputStream input) throws IOException {
+        JsonNode learner = new ObjectMapper().readTree(input).path("learner");
+
+        String objective = learner.path("objective").path("name").asText();
+        if (!"reg:squarederror".equals(objective) && !"reg:linear".equals(objective)) {
+            throw new IllegalArgumentException("不支持的模型目标函数: " + objective);
+        }
+        JsonNode modelParam = learner.path("learner_model_param");
+        if (modelParam.path("num_target").asInt(1) != 1 || modelParam.path("num_class").asInt(0) > 1) {
+            throw new IllegalArgumentException("只支持单输出回归模型");
+        }
+        float baseScore = Float.parseFloat(modelParam.path("base_score").asText("0.5"));
+
+        List<String> names = new ArrayList<>();
+        for (JsonNode name : learner.path("feature_names")) {
+            names.add(name.asText());
+        }
+
+        JsonNode trees = learner.path("gradient_booster").path("model").path("trees");
+        if (!trees.isArray() || trees.size() == 0) {
+            throw new IllegalArgumentException("模型中没有树");
+        }
+
+        int totalNodes = 0;
+        for (JsonNode tree : trees) {
+            totalNodes += tree.path("left_children").size();
+        }
+
+        int[] treeRoots = new int[trees.size()];
+        int[] leftChildren = new int[totalNodes];
+        int[] rightChildren = new int[totalNodes];
+        int[] splitFeatures = new int[totalNodes];
+        float[] splitConditions = new float[totalNodes];
+        boolean[] defaultLeft = new boolean[totalNodes];
+
+        int base = 0;
+        for (int t = 0; t < trees.size(); t++) {
+            JsonNode tree = trees.get(t);
+            if (tree.path("categories_nodes").size() > 0) {
+                throw new IllegalArgumentException("不支持类别特征分裂");
+            }
+            JsonNode left = tree.path("left_children");
+            JsonNode right = tree.path("right_children");
+            JsonNode indices = tree.path("split_indices");
+            JsonNode conditions = tree.path("split_conditions");
+            JsonNode defaults = tree.path("default_left");
+
+            treeRoots[t] = base;
+            for (int i = 0; i < left.size(); i++) {
+                int g = base + i;
+                int l = left.get(i).asInt();
+                leftChildren[g] = l < 0 ? -1 : base + l;
+                rightChildren[g] = l < 0 ? -1 : base + right.get(i).asInt();
+                splitFeatures[g] = indices.get(i).asInt();
+                // 叶子节点的 split_conditions 即叶子值
+                splitConditions[g] = (float) conditions.get(i).asDouble();
+                defaultLeft[g] = defaults.get(i).asInt() != 0;
+            }
+            base += left.size();
+        }
+
+        return new XgboostModel(names.toArray(new String[0]), baseScore, treeRoots,
+                leftChildren, rightChildren, splitFeatures, splitConditions, defaultLeft);
+    }
+
+    int featureCount() {
+        return featureNames.length;
+    }
+
+    int treeCount() {
+        return treeRoots.length;
+    }
+
+    /**
+     * 特征名在输入向量中的位置，不存在时返回 -1
+     */
+    int featureIndex(String name) {
+        for (int i = 0; i < featureNames.length; i++) {
+            if (featureNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 对单个样本推理
+     * @param features 按模型特征顺序排列的特征值，NaN 表示缺失
+     */
+    float predict(float[] features) {
+        float sum = baseScore;
+        for (int root : treeRoots) {
+            int node = root;
+            while (leftChildren[node] >= 0) {
+                float value = features[splitFeatures[node]];
+                if (Float.isNaN(value)) {
+                    node = defaultLeft[node] ? leftChildren[node] : rightChildren[node];
+                } else {
+                    node = value < splitConditions[node] ? leftChildren[node] : rightChildren[node];
+                }
+            }
+            sum += splitConditions[node];
+        }
+        return sum;
+    }
+}
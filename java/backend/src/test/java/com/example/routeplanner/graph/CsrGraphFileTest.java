@@ -0,0 +1,83 @@
+package com.example.routeplanner.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 路网快照文件的写出与读取
+ */
+class CsrGraphFileTest {
+
+    private static final long STAMP = 0x1234_5678_9abcL;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripRestoresAllArrays() throws IOException {
+        CsrGraph graph = TestGraphs.withClosedArcs(TestGraphs.randomKnn(500, 21), 0.02, 22);
+        Path file = directory.resolve("graph.bin");
+        CsrGraphFile.write(graph, STAMP, file);
+
+        CsrGraph read = CsrGraphFile.read(file, STAMP);
+        assertArrayEquals(graph.nodeIds, read.nodeIds);
+        assertArrayEquals(graph.latitudes, read.latitudes);
+        assertArrayEquals(graph.longitudes, read.longitudes);
+        assertArrayEquals(graph.offsets, read.offsets);
+        assertArrayEquals(graph.targets, read.targets);
+        assertArrayEquals(graph.distances, read.distances);
+        assertArrayEquals(graph.edgeIndices, read.edgeIndices);
+        assertArrayEquals(graph.reverseOffsets, read.reverseOffsets);
+        assertArrayEquals(graph.reverseArcs, read.reverseArcs);
+        assertArrayEquals(graph.reverseSources, read.reverseSources);
+        assertEquals(graph.fingerprint(), read.fingerprint());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            assertEquals(i, read.indexOf(graph.sensorId(i)));
+        }
+    }
+
+    @Test
+    void roundTripEmptyGraph() throws IOException {
+        CsrGraph graph = CsrGraph.fromArcs(new int[0], new double[0], new double[0], new int[0], new int[0], new double[0]);
+        Path file = directory.resolve("empty.bin");
+        CsrGraphFile.write(graph, STAMP, file);
+
+        CsrGraph read = CsrGraphFile.read(file, STAMP);
+        assertEquals(0, read.nodeCount());
+        assertEquals(0, read.arcCount());
+    }
+
+    @Test
+    void rejectsDifferentSourceStamp() throws IOException {
+        Path file = directory.resolve("graph.bin");
+        CsrGraphFile.write(TestGraphs.fixed(), STAMP, file);
+
+        assertThrows(IOException.class, () -> CsrGraphFile.read(file, STAMP + 1));
+    }
+
+    @Test
+    void rejectsCorruptedOrTruncatedFile() throws IOException {
+        Path file = directory.resolve("graph.bin");
+        CsrGraphFile.write(TestGraphs.fixed(), STAMP, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length / 2] ^= 0x40;
+        Path corruptedFile = directory.resolve("corrupted.bin");
+        Files.write(corruptedFile, corrupted);
+        assertThrows(IOException.class, () -> CsrGraphFile.read(corruptedFile, STAMP));
+
+        Path truncatedFile = directory.resolve("truncated.bin");
+        Files.write(truncatedFile, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> CsrGraphFile.read(truncatedFile, STAMP));
+    }
+}
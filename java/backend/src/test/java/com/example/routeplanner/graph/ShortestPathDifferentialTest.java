@@ -0,0 +1,196 @@
+package com.example.routeplanner.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 各加速搜索与普通 Dijkstra 的差分测试：A*、ALT、双向搜索、收缩层次与可定制收缩层次
+ * 在同一查询上必须找到同样的可达性与同样的最短路径代价，且返回的弧序列与代价一致
+ */
+class ShortestPathDifferentialTest {
+
+    private static final double RELATIVE_ERROR = 1e-9;
+
+    @Test
+    void fixedGraphKnownDistances() {
+        CsrGraph graph = TestGraphs.fixed();
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        ArcWeights weights = ArcWeights.distance(graph);
+
+        // 6 -> 7 -> 3 经单向路段比直连 6 - 3 更短，反向只能走双向路段
+        assertEquals(0.9, engine.search(graph.indexOf(6), graph.indexOf(3), weights).getTotalWeight(), 1e-12);
+        assertEquals(1.3, engine.search(graph.indexOf(3), graph.indexOf(6), weights).getTotalWeight(), 1e-12);
+        assertEquals(3.1, engine.search(graph.indexOf(1), graph.indexOf(7), weights).getTotalWeight(), 1e-12);
+        assertFalse(engine.search(graph.indexOf(1), graph.indexOf(8), weights).isFound());
+    }
+
+    @Test
+    void fixedGraphAllPairs() {
+        CsrGraph graph = TestGraphs.fixed();
+        List<int[]> queries = new ArrayList<>();
+        for (int s = 0; s < graph.nodeCount(); s++) {
+            for (int t = 0; t < graph.nodeCount(); t++) {
+                queries.add(new int[]{s, t});
+            }
+        }
+        verifyAll(graph, queries, new Random(1));
+    }
+
+    @Test
+    void randomGraph() {
+        CsrGraph graph = TestGraphs.randomKnn(2000, 7);
+        verifyAll(graph, randomQueries(graph, 150, new Random(2)), new Random(3));
+    }
+
+    @Test
+    void randomGraphWithCompactedClosures() {
+        // 已合并的封闭在基础路网中是距离为正无穷的弧，各预处理结构直接在其上构建
+        CsrGraph graph = TestGraphs.withClosedArcs(TestGraphs.randomKnn(1500, 11), 0.05, 12);
+        verifyAll(graph, randomQueries(graph, 150, new Random(13)), new Random(14));
+    }
+
+    @Test
+    void structuresReusedOnSameTopology() {
+        // 合并只改变弧距离时：地标在没有弧变短时复用，可定制收缩层次直接共享
+        CsrGraph graph = TestGraphs.randomKnn(1500, 31);
+        Random random = new Random(32);
+        CsrGraph lengthened = TestGraphs.withDistances(graph,
+                arc -> random.nextDouble() < 0.1 ? graph.distance(arc) * (1 + random.nextDouble() * 3) : graph.distance(arc));
+        CsrGraph shortened = TestGraphs.withDistances(graph, arc -> arc == 0 ? graph.distance(arc) * 0.5 : graph.distance(arc));
+        assertTrue(graph.sameTopology(lengthened));
+
+        Landmarks landmarks = Landmarks.build(graph, 8);
+        assertNull(landmarks.reuseFor(shortened));
+        Landmarks reused = landmarks.reuseFor(lengthened);
+        assertNotNull(reused);
+        assertSame(lengthened, reused.getGraph());
+
+        CustomizableHierarchy customizable = CustomizableHierarchy.build(graph).withGraph(lengthened);
+        ShortestPathEngine engine = new ShortestPathEngine(lengthened);
+        ArcWeights weights = ArcWeights.distance(lengthened);
+        CustomizedMetric metric = customizable.customize(weights);
+        for (int[] query : randomQueries(lengthened, 150, new Random(33))) {
+            int s = query[0];
+            int t = query[1];
+            PathSearchResult expected = engine.search(s, t, weights);
+            assertSameCost(lengthened, weights, s, t, expected, engine.searchAlt(s, t, weights, reused), "复用地标 ALT");
+            assertSameCost(lengthened, weights, s, t, expected, customizable.search(metric, s, t), "共享层次 CCH");
+        }
+    }
+
+    /**
+     * 在距离与两组拥堵权重上，分别不带和带弧距离覆盖（封闭与改距离）比较各算法
+     */
+    private static void verifyAll(CsrGraph graph, List<int[]> queries, Random random) {
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        Landmarks landmarks = Landmarks.build(graph, 8);
+        HierarchySearchEngine hierarchy = new HierarchySearchEngine(graph, ContractionHierarchy.build(graph));
+        CustomizableHierarchy customizable = CustomizableHierarchy.build(graph);
+
+        double[] flows = new double[graph.arcCount()];
+        for (int arc = 0; arc < flows.length; arc++) {
+            flows[arc] = 1 + random.nextDouble() * 50;
+        }
+        ArcFlows arcFlows = ArcFlows.of(flows);
+        EdgeOverlay overlay = randomOverlay(graph, random);
+
+        List<ArcWeights> metrics = new ArrayList<>();
+        metrics.add(ArcWeights.distance(graph));
+        metrics.add(ArcWeights.congestion(graph, arcFlows, 0.05));
+        metrics.add(ArcWeights.congestion(graph, arcFlows, -0.01));
+        int plain = metrics.size();
+        for (int i = 0; i < plain; i++) {
+            metrics.add(metrics.get(i).withOverlay(overlay));
+        }
+
+        for (int i = 0; i < metrics.size(); i++) {
+            ArcWeights weights = metrics.get(i);
+            CustomizedMetric metric = customizable.customize(weights);
+            for (int[] query : queries) {
+                int s = query[0];
+                int t = query[1];
+                String label = "metric " + i + ", " + graph.sensorId(s) + " -> " + graph.sensorId(t);
+                PathSearchResult expected = engine.search(s, t, weights);
+                verifyPath(graph, weights, s, t, expected, label + " Dijkstra");
+
+                assertSameCost(graph, weights, s, t, expected, engine.searchAStar(s, t, weights), label + " A*");
+                assertSameCost(graph, weights, s, t, expected, engine.searchAlt(s, t, weights, landmarks), label + " ALT");
+                assertSameCost(graph, weights, s, t, expected, engine.searchBidirectional(s, t, weights),
+                        label + " 双向");
+                assertSameCost(graph, weights, s, t, expected, customizable.search(metric, s, t), label + " CCH");
+                if (i == 0) {
+                    // 收缩层次按基础路网的弧距离构建，只回答不带覆盖的距离查询
+                    assertSameCost(graph, weights, s, t, expected, hierarchy.search(s, t), label + " CH");
+                }
+            }
+        }
+    }
+
+    /**
+     * 约 3% 的弧封闭，约 3% 的弧距离乘以 0.5~2
+     */
+    private static EdgeOverlay randomOverlay(CsrGraph graph, Random random) {
+        Map<Integer, Double> arcDistances = new HashMap<>();
+        for (int arc = 0; arc < graph.arcCount(); arc++) {
+            double p = random.nextDouble();
+            if (p < 0.03) {
+                arcDistances.put(arc, Double.POSITIVE_INFINITY);
+            } else if (p < 0.06) {
+                arcDistances.put(arc, graph.distance(arc) * (0.5 + random.nextDouble() * 1.5));
+            }
+        }
+        return EdgeOverlay.of(graph, arcDistances);
+    }
+
+    private static List<int[]> randomQueries(CsrGraph graph, int count, Random random) {
+        List<int[]> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queries.add(new int[]{random.nextInt(graph.nodeCount()), random.nextInt(graph.nodeCount())});
+        }
+        return queries;
+    }
+
+    private static void assertSameCost(CsrGraph graph, ArcWeights weights, int source, int target,
+                                       PathSearchResult expected, PathSearchResult actual, String label) {
+        assertEquals(expected.isFound(), actual.isFound(), label + " 可达性不一致");
+        if (expected.isFound()) {
+            assertEquals(expected.getTotalWeight(), actual.getTotalWeight(),
+                    RELATIVE_ERROR * Math.max(1.0, expected.getTotalWeight()), label + " 代价不一致");
+            verifyPath(graph, weights, source, target, actual, label);
+        }
+    }
+
+    /**
+     * 路径从 source 到 target 首尾相接，弧权重之和等于返回的代价
+     */
+    private static void verifyPath(CsrGraph graph, ArcWeights weights, int source, int target,
+                                   PathSearchResult result, String label) {
+        if (!result.isFound()) {
+            return;
+        }
+        int[] nodes = result.getNodes();
+        int[] arcs = result.getArcs();
+        assertEquals(nodes.length, arcs.length + 1, label + " 节点数与弧数不匹配");
+        assertEquals(source, nodes[0], label + " 起点错误");
+        assertEquals(target, nodes[nodes.length - 1], label + " 终点错误");
+        double sum = 0;
+        for (int i = 0; i < arcs.length; i++) {
+            assertTrue(arcs[i] >= graph.firstArc(nodes[i]) && arcs[i] < graph.endArc(nodes[i]), label + " 弧不属于路径节点");
+            assertEquals(nodes[i + 1], graph.target(arcs[i]), label + " 弧与节点不相接");
+            sum += weights.weight(arcs[i]);
+        }
+        assertEquals(sum, result.getTotalWeight(), RELATIVE_ERROR * Math.max(1.0, sum), label + " 弧权重之和与代价不一致");
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.routeplanner.graph;
+
+import com.example.routeplanner.model.Edge;
+import com.example.routeplanner.model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * 测试用路网
+ */
+final class TestGraphs {
+
+    private TestGraphs() {
+    }
+
+    /**
+     * 8 个节点的小路网：3x2 网格加一个北侧节点，含单向路段 6 -> 7、7 -> 3，节点 8 不可达
+     */
+    static CsrGraph fixed() {
+        List<Node> nodes = Arrays.asList(
+                new Node(1, 39.90, 116.40), new Node(2, 39.90, 116.41), new Node(3, 39.90, 116.42),
+                new Node(4, 39.91, 116.40), new Node(5, 39.91, 116.41), new Node(6, 39.91, 116.42),
+                new Node(7, 39.92, 116.41), new Node(8, 39.95, 116.50));
+        List<Edge> edges = new ArrayList<>();
+        addBoth(edges, 1, 2, 1.0);
+        addBoth(edges, 2, 3, 1.0);
+        addBoth(edges, 1, 4, 1.2);
+        addBoth(edges, 4, 5, 0.9);
+        addBoth(edges, 5, 6, 0.9);
+        addBoth(edges, 2, 5, 1.1);
+        addBoth(edges, 3, 6, 1.3);
+        addBoth(edges, 5, 7, 1.0);
+        edges.add(new Edge(6, 7, 0.5));
+        edges.add(new Edge(7, 3, 0.4));
+        return CsrGraph.build(nodes, edges);
+    }
+
+    /**
+     * 随机路网：节点均匀分布，每个节点与最近的 3 个邻居双向相连，距离为大圆距离乘以 1~1.3 的随机系数
+     */
+    static CsrGraph randomKnn(int nodeCount, long seed) {
+        Random random = new Random(seed);
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new Node(i + 1, 39.7 + random.nextDouble() * 0.5, 116.1 + random.nextDouble() * 0.6));
+        }
+        CsrGraph points = CsrGraph.build(nodes, new ArrayList<>());
+        SpatialIndex index = new SpatialIndex(points);
+        List<Edge> edges = new ArrayList<>();
+        for (int u = 0; u < nodeCount; u++) {
+            NearestNeighbors neighbors = index.nearest(points.latitude(u), points.longitude(u), 4);
+            for (int j = 0; j < neighbors.size(); j++) {
+                int v = neighbors.node(j);
+                if (v == u) {
+                    continue;
+                }
+                double straight = GeoUtils.haversineKm(points.latitude(u), points.longitude(u),
+                        points.latitude(v), points.longitude(v));
+                edges.add(new Edge(points.sensorId(u), points.sensorId(v), straight * (1 + random.nextDouble() * 0.3)));
+                edges.add(new Edge(points.sensorId(v), points.sensorId(u), straight * (1 + random.nextDouble() * 0.3)));
+            }
+        }
+        return CsrGraph.build(nodes, edges);
+    }
+
+    /**
+     * 与 graph 拓扑相同、部分弧距离为正无穷（已合并的封闭）的图
+     */
+    static CsrGraph withClosedArcs(CsrGraph graph, double fraction, long seed) {
+        Random random = new Random(seed);
+        return withDistances(graph, arc -> random.nextDouble() < fraction ? Double.POSITIVE_INFINITY : graph.distance(arc));
+    }
+
+    /**
+     * 与 graph 拓扑与弧下标相同、弧距离由 distance 给出的图
+     */
+    static CsrGraph withDistances(CsrGraph graph, IntToDoubleFunction distance) {
+        int n = graph.nodeCount();
+        int m = graph.arcCount();
+        int[] nodeIds = new int[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            nodeIds[i] = graph.sensorId(i);
+            latitudes[i] = graph.latitude(i);
+            longitudes[i] = graph.longitude(i);
+        }
+        int[] sources = new int[m];
+        int[] destinations = new int[m];
+        double[] distances = new double[m];
+        for (int u = 0; u < n; u++) {
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int e = graph.edgeIndex(arc);
+                sources[e] = u;
+                destinations[e] = graph.target(arc);
+                distances[e] = distance.applyAsDouble(arc);
+            }
+        }
+        return CsrGraph.fromArcs(nodeIds, latitudes, longitudes, sources, destinations, distances);
+    }
+
+    private static void addBoth(List<Edge> edges, int from, int to, double distance) {
+        edges.add(new Edge(from, to, distance));
+        edges.add(new Edge(to, from, distance));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.routeplanner.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 时间依赖通行时间：按弧计算的结果与逐段物化并做 FIFO 修正的数组一致，且晚出发不会早到达
+ */
+class TravelTimeProfileTest {
+
+    private static final int HORIZON = 6;
+    private static final double SLOT_MINUTES = 10.0;
+    private static final DoubleBinaryOperator TRAVEL_TIME = (distance, weight) -> (distance + weight * 2) / 40 * 60;
+
+    @Test
+    void matchesMaterializedTravelTimes() {
+        CsrGraph graph = TestGraphs.randomKnn(300, 41);
+        ArcWeights[] slots = randomSlots(graph, new Random(42));
+        for (int departure : new int[]{0, 2, HORIZON - 1, HORIZON + 3}) {
+            TravelTimeProfile profile = profile(slots, departure);
+            double[][] expected = materialize(graph, slots, departure);
+            Random random = new Random(departure);
+            for (int i = 0; i < 5000; i++) {
+                int arc = random.nextInt(graph.arcCount());
+                double minutes = random.nextDouble() * SLOT_MINUTES * (HORIZON + 2);
+                double position = minutes / SLOT_MINUTES;
+                int slot = (int) position;
+                double value;
+                if (slot >= expected.length - 1) {
+                    value = expected[expected.length - 1][arc];
+                } else {
+                    double current = expected[slot][arc];
+                    value = current + (position - slot) * (expected[slot + 1][arc] - current);
+                }
+                assertEquals(value, profile.travelTime(arc, minutes), 1e-9 * Math.max(1.0, value));
+            }
+        }
+    }
+
+    @Test
+    void laterDepartureNeverArrivesEarlier() {
+        CsrGraph graph = TestGraphs.randomKnn(200, 43);
+        ArcWeights[] slots = randomSlots(graph, new Random(44));
+        TravelTimeProfile profile = profile(slots, 0);
+        for (int arc = 0; arc < graph.arcCount(); arc++) {
+            double previous = 0.0;
+            for (double minutes = 0.0; minutes <= SLOT_MINUTES * (HORIZON + 1); minutes += 0.5) {
+                double arrival = minutes + profile.travelTime(arc, minutes);
+                assertTrue(arrival >= previous - 1e-9, "弧 " + arc + " 在 " + minutes + " 分钟出发时提前到达");
+                previous = arrival;
+            }
+        }
+    }
+
+    /**
+     * 各时间段的拥堵权重，流量在时间段之间剧烈变化，使部分弧需要 FIFO 修正
+     */
+    private static ArcWeights[] randomSlots(CsrGraph graph, Random random) {
+        ArcWeights[] slots = new ArcWeights[HORIZON + 4];
+        for (int slot = 0; slot < slots.length; slot++) {
+            double[] flows = new double[graph.arcCount()];
+            for (int arc = 0; arc < flows.length; arc++) {
+                flows[arc] = random.nextDouble() < 0.2 ? 400 * random.nextDouble() : 1 + random.nextDouble() * 20;
+            }
+            slots[slot] = ArcWeights.congestion(graph, ArcFlows.of(flows), 0.05);
+        }
+        return slots;
+    }
+
+    private static TravelTimeProfile profile(ArcWeights[] slots, int departure) {
+        return new TravelTimeProfile(departure, HORIZON, SLOT_MINUTES, slot -> slots[slot], TRAVEL_TIME);
+    }
+
+    /**
+     * 参考实现：从出发时间段起为每个时间段物化整张图的通行时间，并逐段做 FIFO 修正
+     */
+    private static double[][] materialize(CsrGraph graph, ArcWeights[] slots, int departure) {
+        int count = Math.max(departure, HORIZON - 1) - departure + 1;
+        double[][] times = new double[count][graph.arcCount()];
+        for (int i = 0; i < count; i++) {
+            ArcWeights weights = slots[departure + i];
+            for (int arc = 0; arc < graph.arcCount(); arc++) {
+                double time = TRAVEL_TIME.applyAsDouble(graph.distance(arc), weights.weight(arc));
+                times[i][arc] = i > 0 ? Math.max(time, times[i - 1][arc] - SLOT_MINUTES) : time;
+            }
+        }
+        return times;
+    }
+}
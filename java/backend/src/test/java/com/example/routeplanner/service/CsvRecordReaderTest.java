@@ -0,0 +1,113 @@
+package com.example.routeplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CSV 字段解析：doubleField 必须与 {@link Double#parseDouble} 逐位一致
+ */
+class CsvRecordReaderTest {
+
+    @Test
+    void doubleFieldMatchesParseDoubleOnEdgeCases() {
+        assertSameAsParseDouble(Arrays.asList(
+                "0", "-0", "0.0", "-0.0", "00", "1", "-1", "1.5", "0.1", "0.2", "0.3", "-0.3",
+                "5.", "-5.", ".5", "-.5", "000123.4500", "116.397128", "39.916527", "-116.397128",
+                "3.141592653589793", "0.30000000000000004", "123456789012345", "1234567890123456",
+                "999999999999999", "9999999999999999", "9007199254740993", "0.000000000000000000001",
+                "0.0000000000000000000001", "1234567.89012345", "12.3456789012345678",
+                "1e10", "1E-5", "-2.5e3", "Infinity", "-Infinity", "NaN", "4.9e-324", "1.7976931348623157e308"));
+    }
+
+    @Test
+    void doubleFieldMatchesParseDoubleOnRandomValues() {
+        Random random = new Random(42);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            values.add(Double.toString(value));
+            values.add(String.format(Locale.ROOT, "%." + random.nextInt(23) + "f", value));
+            values.add(new BigDecimal(value).toPlainString());
+            values.add(randomDigits(random));
+        }
+        assertSameAsParseDouble(values);
+    }
+
+    @Test
+    void doubleFieldRejectsInvalidNumbers() {
+        for (String text : Arrays.asList("abc", "-", ".", "-.", "1.2.3", "--1", "1-", "1 2")) {
+            byte[] data = bytes("id," + text + "\n");
+            int[] parsed = new int[1];
+            new CsvRecordReader().parse(data, 0, data.length, false, reader -> {
+                parsed[0]++;
+                assertThrows(NumberFormatException.class, () -> reader.doubleField(1), text);
+            });
+            assertEquals(1, parsed[0], text);
+        }
+    }
+
+    @Test
+    void fieldsAreTrimmedAndQuotesRemoved() throws IOException {
+        byte[] data = bytes("id,value\n 17 , \"2.5\" \r\n\n-3,\"-0.25\"\n4,1e2");
+        List<String> records = new ArrayList<>();
+        new CsvRecordReader().parse(new ByteArrayInputStream(data),
+                r -> records.add(r.fieldCount() + ":" + r.intField(0) + ":" + r.doubleField(1)));
+        assertEquals(Arrays.asList("2:17:2.5", "2:-3:-0.25", "2:4:100.0"), records);
+    }
+
+    /**
+     * 每行 "序号,数值"，逐行比较第二个字段的解析结果
+     */
+    private static void assertSameAsParseDouble(List<String> values) {
+        StringBuilder csv = new StringBuilder("id,value\n");
+        for (int i = 0; i < values.size(); i++) {
+            csv.append(i).append(',').append(values.get(i)).append('\n');
+        }
+        byte[] data = bytes(csv.toString());
+        int[] count = new int[1];
+        new CsvRecordReader().parse(data, 0, data.length, true, reader -> {
+            int i = reader.intField(0);
+            String text = values.get(i);
+            double expected = Double.parseDouble(text);
+            assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(reader.doubleField(1)),
+                    () -> "解析结果不一致: " + text);
+            count[0]++;
+        });
+        assertEquals(values.size(), count[0]);
+    }
+
+    /**
+     * 1~25 位随机数字，随机位置插入小数点，可带负号与前导零
+     */
+    private static String randomDigits(Random random) {
+        StringBuilder text = new StringBuilder();
+        if (random.nextBoolean()) {
+            text.append('-');
+        }
+        int length = 1 + random.nextInt(25);
+        int point = random.nextInt(length + 1);
+        for (int i = 0; i < length; i++) {
+            if (i == point && i > 0) {
+                text.append('.');
+            }
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+        return text.toString();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
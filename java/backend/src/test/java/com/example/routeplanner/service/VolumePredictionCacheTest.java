@@ -0,0 +1,86 @@
+package com.example.routeplanner.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 流量预测缓存：模型请求期间缓存被清空时，旧请求的结果不得写回缓存
+ */
+class VolumePredictionCacheTest {
+
+    @Test
+    void fetchResultCachedWhenNotInvalidated() {
+        StubPredictor predictor = new StubPredictor();
+        VolumePredictionCache cache = newCache(predictor);
+
+        assertArrayEquals(new double[]{5.0, 5.0}, cache.tryGetVolumes(new int[]{1, 2}, 10));
+        assertEquals(2, cache.size());
+        cache.tryGetVolumes(new int[]{1, 2}, 10);
+        assertEquals(1, predictor.calls);
+    }
+
+    @Test
+    void fetchResultDroppedWhenInvalidatedDuringFetch() {
+        StubPredictor predictor = new StubPredictor();
+        VolumePredictionCache cache = newCache(predictor);
+        predictor.duringFetch = cache::invalidateAll;
+
+        assertArrayEquals(new double[]{5.0, 5.0}, cache.tryGetVolumes(new int[]{1, 2}, 10));
+        assertEquals(0, cache.size());
+
+        predictor.duringFetch = null;
+        cache.tryGetVolumes(new int[]{1, 2}, 10);
+        assertEquals(2, cache.size());
+        assertEquals(2, predictor.calls);
+    }
+
+    private static VolumePredictionCache newCache(VolumePredictor predictor) {
+        VolumePredictionCache cache = new VolumePredictionCache();
+        ReflectionTestUtils.setField(cache, "volumePredictor", predictor);
+        ReflectionTestUtils.setField(cache, "maxSize", 1000);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 3600L);
+        cache.init();
+        return cache;
+    }
+
+    private static class StubPredictor implements VolumePredictor {
+        Runnable duringFetch;
+        int calls;
+
+        @Override
+        public double predictVolume(int nodeId, int timePoint) {
+            return 5.0;
+        }
+
+        @Override
+        public double[] predictVolumes(int[] nodeIds, int timePoint) {
+            return tryPredictVolumes(nodeIds, timePoint);
+        }
+
+        @Override
+        public double[] tryPredictVolumes(int[] nodeIds, int timePoint) {
+            calls++;
+            if (duringFetch != null) {
+                duringFetch.run();
+            }
+            double[] volumes = new double[nodeIds.length];
+            Arrays.fill(volumes, 5.0);
+            return volumes;
+        }
+
+        @Override
+        public String getModelVersion() {
+            return "v1";
+        }
+
+        @Override
+        public boolean isServiceAvailable() {
+            return true;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 from flask import Flask, request, jsonify
 import xgboost as xgb
 import pandas as pd
+import hashlib
 
 app = Flask(__name__)
 
@@ -8,6 +9,8 @@ app = Flask(__name__)
 model_path = "models/node_volume_model.json"
 model = xgb.XGBRegressor()
 model.load_model(model_path)
+with open(model_path, "rb") as f:
+    model_version = hashlib.md5(f.read()).hexdigest()
 print(" 模型已加载")
 
 @app.route("/predict", methods=["GET", "POST"])
@@ -31,5 +34,28 @@ def predict_volume():
         "volume": float(max(pred, 1))
     })
 
+@app.route("/predict_batch", methods=["POST"])
+def predict_volume_batch():
+    data = request.get_json(silent=True) or {}
+    nodes = data.get("nodes")
+    time = data.get("time")
+
+    if not isinstance(nodes, list) or time is None:
+        return jsonify({"error": "请提供 nodes 数组和 time 参数"}), 400
+
+    if not nodes:
+        return jsonify({"time": time, "volumes": []})
+
+    df = pd.DataFrame({"node": nodes, "time": [time] * len(nodes)}, columns=["node", "time"])
+    preds = model.predict(df)
+    return jsonify({
+        "time": time,
+        "volumes": [float(max(p, 1)) for p in preds]
+    })
+
+@app.route("/version", methods=["GET"])
+def get_version():
+    return jsonify({"version": model_version})
+
 if __name__ == '__main__':
     app.run(port=5000, debug=True)